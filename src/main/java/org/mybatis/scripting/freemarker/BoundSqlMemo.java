@@ -0,0 +1,227 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The invocation-scoped memo of {@link BoundSql}. While a scope is open on the current thread, a
+ * {@link FreeMarkerSqlSource} returns the previously rendered result for the same parameter instance, so the
+ * interceptors and MyBatis can call {@code MappedStatement#getBoundSql} several times in one execution without rendering
+ * the template again:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * BoundSqlMemo.Scope scope = BoundSqlMemo.open();
+ * try {
+ *   ...
+ * } finally {
+ *   scope.close();
+ * }
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * Usually the scope is opened by {@link org.mybatis.scripting.freemarker.support.BoundSqlMemoInterceptor}. The scopes
+ * can be nested, and the memo is discarded when the outermost scope is closed. Each call returns a copy of the
+ * memoized {@link BoundSql}.
+ * </p>
+ * <p>
+ * A result is keyed by the identity of parameter object only, and the parameter object is never inspected. So the code
+ * that modifies a parameter object within a scope should call {@link #invalidate()}, or should run in a scope that is
+ * opened by {@link #suspend()} (e.g. an update statement with a key generator).
+ * </p>
+ *
+ * @since 1.3.3
+ */
+public final class BoundSqlMemo {
+
+  /**
+   * The maximum number of memoized results per scope.
+   */
+  private static final int MAX_ENTRIES = 64;
+
+  private static final ThreadLocal<BoundSqlMemo> CURRENT = new ThreadLocal<>();
+
+  private final List<Entry> entries = new ArrayList<>();
+  private int depth;
+  private int suspended;
+
+  private BoundSqlMemo() {
+    // NOP
+  }
+
+  /**
+   * Open a scope of memo on the current thread.
+   *
+   * @return the scope that should be closed at the end of invocation
+   */
+  public static Scope open() {
+    return open(false);
+  }
+
+  /**
+   * Open a scope that suspends the memo on the current thread. While the scope is open, nothing is memoized nor reused,
+   * and the memo is invalidated when the scope is closed, because the parameter objects may be modified in the scope.
+   *
+   * @return the scope that should be closed at the end of invocation
+   */
+  public static Scope suspend() {
+    return open(true);
+  }
+
+  /**
+   * Discard the results that are memoized on the current thread. It should be called after modifying a parameter
+   * object while a scope is open. It does nothing if no scope is open.
+   */
+  public static void invalidate() {
+    BoundSqlMemo memo = CURRENT.get();
+    if (memo != null) {
+      memo.entries.clear();
+    }
+  }
+
+  private static Scope open(boolean suspending) {
+    BoundSqlMemo memo = CURRENT.get();
+    if (memo == null) {
+      memo = new BoundSqlMemo();
+      CURRENT.set(memo);
+    }
+    memo.depth++;
+    if (suspending) {
+      memo.suspended++;
+    }
+    return new OpenScope(memo, suspending);
+  }
+
+  /**
+   * Get the memo of the current thread.
+   *
+   * @return the memo, or {@code null} if no scope is open
+   */
+  static BoundSqlMemo current() {
+    return CURRENT.get();
+  }
+
+  private void close(boolean suspending) {
+    if (suspending) {
+      suspended--;
+      entries.clear();
+    }
+    if (--depth == 0) {
+      entries.clear();
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Get the memoized result.
+   *
+   * @param sqlSource
+   *          the SQL source
+   * @param parameterObject
+   *          the parameter object
+   * @param configuration
+   *          the MyBatis configuration
+   *
+   * @return a copy of the memoized result, or {@code null} if not found (or the memo is suspended)
+   */
+  BoundSql get(SqlSource sqlSource, Object parameterObject, Configuration configuration) {
+    if (suspended > 0) {
+      return null;
+    }
+    for (Entry entry : entries) {
+      if (entry.sqlSource == sqlSource && entry.parameterObject == parameterObject) {
+        return copy(entry.boundSql, configuration);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Memoize the result.
+   *
+   * @param sqlSource
+   *          the SQL source
+   * @param parameterObject
+   *          the parameter object
+   * @param boundSql
+   *          the result
+   * @param configuration
+   *          the MyBatis configuration
+   */
+  void put(SqlSource sqlSource, Object parameterObject, BoundSql boundSql, Configuration configuration) {
+    if (suspended == 0 && entries.size() < MAX_ENTRIES) {
+      entries.add(new Entry(sqlSource, parameterObject, copy(boundSql, configuration)));
+    }
+  }
+
+  private static BoundSql copy(BoundSql boundSql, Configuration configuration) {
+    BoundSql result = new BoundSql(configuration, boundSql.getSql(), boundSql.getParameterMappings(),
+        boundSql.getParameterObject());
+    boundSql.getAdditionalParameters().forEach(result::setAdditionalParameter);
+    return result;
+  }
+
+  /**
+   * The scope of memo.
+   */
+  public interface Scope extends AutoCloseable {
+    /**
+     * Close the scope. The memo is discarded when the outermost scope is closed.
+     */
+    @Override
+    void close();
+  }
+
+  private static class OpenScope implements Scope {
+    private final BoundSqlMemo memo;
+    private final boolean suspending;
+    private boolean closed;
+
+    OpenScope(BoundSqlMemo memo, boolean suspending) {
+      this.memo = memo;
+      this.suspending = suspending;
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        memo.close(suspending);
+      }
+    }
+  }
+
+  private static class Entry {
+    private final SqlSource sqlSource;
+    private final Object parameterObject;
+    private final BoundSql boundSql;
+
+    Entry(SqlSource sqlSource, Object parameterObject, BoundSql boundSql) {
+      this.sqlSource = sqlSource;
+      this.parameterObject = parameterObject;
+      this.boundSql = boundSql;
+    }
+  }
+
+}
@@ -0,0 +1,165 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import freemarker.core.CustomAttribute;
+import freemarker.core.Environment;
+import freemarker.template.TemplateDirectiveBody;
+import freemarker.template.TemplateDirectiveModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateNumberModel;
+import freemarker.template.TemplateScalarModel;
+
+/**
+ * Custom FreeMarker directive that caches the rendered body across processings. The body is rendered once per distinct
+ * {@code key} (and {@code _databaseId}), and the subsequent calls reuse the rendered text without evaluating the body.
+ * It is designed for fragments that depend only on static metadata, such as generated column lists or join blocks:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ *     SELECT &lt;@cached key=entityType.name&gt;${helper.columnsFor(entityType)}&lt;/@cached&gt; FROM ...
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * The body should depend only on the inputs that are represented by the {@code key}, because the parameters that
+ * differ between calls are not reflected. Only the text is cached, so a body that generates parameters (e.g.
+ * {@code <@p value=.../>}) is rejected with {@link TemplateModelException}, because their values would be bound to
+ * other processings. The named parameters (e.g. {@code <@p name="id"/>}) can be used in the body, because they are
+ * bound from the parameter object at each execution. A body that refers to the generated parameters outside of it is
+ * never cached.
+ * </p>
+ * <p>
+ * The cache belongs to the template, so it is discarded when the template is reloaded. The number of keys per template
+ * is bounded (default is {@value #DEFAULT_MAX_ENTRIES}); once it is reached, the body of new keys is rendered every
+ * time.
+ * </p>
+ *
+ * @see MemoDirective
+ *
+ * @since 1.3.3
+ */
+public class CachedDirective implements TemplateDirectiveModel {
+  public static final String DEFAULT_KEY = "cached";
+
+  /**
+   * The default maximum number of cached fragments per template.
+   */
+  public static final int DEFAULT_MAX_ENTRIES = 256;
+
+  private static final Pattern GENERATED_PARAM_PATTERN = Pattern.compile("#\\{_p(\\d+)(?![\\w$])");
+
+  private static final Fragment NOT_CACHEABLE = new Fragment(null);
+
+  private final int maxEntries;
+
+  private final CustomAttribute fragments = new CustomAttribute(CustomAttribute.SCOPE_TEMPLATE) {
+    @Override
+    protected Object create() {
+      return new ConcurrentHashMap<String, Fragment>();
+    }
+  };
+
+  /**
+   * Constructor with the default maximum number of cached fragments.
+   */
+  public CachedDirective() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Constructor for specifying the maximum number of cached fragments.
+   *
+   * @param maxEntries
+   *          the maximum number of cached fragments per template
+   */
+  protected CachedDirective(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  @Override
+  public void execute(Environment env, Map params, TemplateModel[] loopVars, TemplateDirectiveBody body)
+      throws TemplateException, IOException {
+    if (body == null) {
+      return;
+    }
+    String key = getKey(params) + '\0' + MyBatisParamDirective.getDatabaseId(env);
+    @SuppressWarnings("unchecked")
+    ConcurrentMap<String, Fragment> cache = (ConcurrentMap<String, Fragment>) fragments
+        .get(env.getCurrentTemplate());
+    Fragment fragment = cache.get(key);
+    if (fragment == NOT_CACHEABLE) {
+      body.render(env.getOut());
+      return;
+    }
+    if (fragment == null) {
+      List<?> generatedParams = MyBatisParamDirective.getGeneratedParams(env);
+      int start = generatedParams.size();
+      StringWriter buffer = new StringWriter();
+      body.render(buffer);
+      if (generatedParams.size() > start) {
+        throw new TemplateModelException("The body of @cached directive cannot generate parameters (e.g. <@p/>),"
+            + " because the cached text is reused in other processings. Use the named parameters"
+            + " (e.g. <@p name=\"id\"/>) or move the directive out of the body.");
+      }
+      String text = buffer.toString();
+      env.getOut().write(text);
+      if (cache.size() < maxEntries) {
+        cache.putIfAbsent(key, Fragment.of(text));
+      }
+      return;
+    }
+    env.getOut().write(fragment.text);
+  }
+
+  private static String getKey(Map params) throws TemplateModelException {
+    Object value = params.get("key");
+    if (value instanceof TemplateScalarModel) {
+      return ((TemplateScalarModel) value).getAsString();
+    } else if (value instanceof TemplateNumberModel) {
+      return ((TemplateNumberModel) value).getAsNumber().toString();
+    }
+    throw new TemplateModelException("The 'key' attribute is required as string.");
+  }
+
+  /**
+   * The rendered text that does not bind generated parameters.
+   */
+  private static class Fragment {
+    private final String text;
+
+    Fragment(String text) {
+      this.text = text;
+    }
+
+    static Fragment of(String text) {
+      // Refers to a generated param outside of the body, that may differ at the next processing
+      return GENERATED_PARAM_PATTERN.matcher(text).find() ? NOT_CACHEABLE : new Fragment(text);
+    }
+  }
+
+}
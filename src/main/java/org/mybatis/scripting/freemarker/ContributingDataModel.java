@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import freemarker.template.ObjectWrapper;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+
+/**
+ * The root data model that resolves the keys not found in the parameters via {@link DataContextContributor}s lazily.
+ * The contributed values are memoized per instance (created per template processing).
+ *
+ * @since 1.3.3
+ */
+class ContributingDataModel implements TemplateHashModel {
+  private static final TemplateModel NULL_VALUE = new TemplateModel() {
+  };
+
+  private final TemplateHashModel dataModel;
+  private final Map<String, DataContextContributor> contributors;
+  private final Object parameterObject;
+  private final ObjectWrapper wrapper;
+  private Map<String, TemplateModel> contributedValues;
+
+  ContributingDataModel(TemplateHashModel dataModel, Map<String, DataContextContributor> contributors,
+      Object parameterObject, ObjectWrapper wrapper) {
+    this.dataModel = dataModel;
+    this.contributors = contributors;
+    this.parameterObject = parameterObject;
+    this.wrapper = wrapper;
+  }
+
+  @Override
+  public TemplateModel get(String key) throws TemplateModelException {
+    TemplateModel value = dataModel.get(key);
+    if (value != null) {
+      return value;
+    }
+    DataContextContributor contributor = contributors.get(key);
+    if (contributor == null) {
+      return null;
+    }
+    if (contributedValues == null) {
+      contributedValues = new HashMap<>();
+    }
+    value = contributedValues.get(key);
+    if (value == null) {
+      Object contributed = contributor.contribute(parameterObject);
+      value = contributed == null ? NULL_VALUE : wrapper.wrap(contributed);
+      contributedValues.put(key, value);
+    }
+    return value == NULL_VALUE ? null : value;
+  }
+
+  @Override
+  public boolean isEmpty() throws TemplateModelException {
+    return dataModel.isEmpty() && contributors.isEmpty();
+  }
+
+}
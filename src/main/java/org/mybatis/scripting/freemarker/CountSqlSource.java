@@ -0,0 +1,304 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The {@link SqlSource} that derives a COUNT query from a select template. It renders the original template once, strips
+ * a trailing top-level locking clause (e.g. {@code FOR UPDATE}) and a trailing top-level {@code ORDER BY} clause (when
+ * no row limiting clause follows it), and wraps the result as {@code SELECT COUNT(*) FROM (...)}. So, there is no need
+ * to maintain a separated count template for paged listings. The {@code ORDER BY} clause is kept when the placeholders
+ * of rendered SQL do not match with the parameter mappings (e.g. a driver specific operator that contains {@code ?}).
+ * <p>
+ * Instances are usually obtained via {@link FreeMarkerSqlSource#getCountSqlSource()}, that caches one instance per
+ * statement.
+ * </p>
+ *
+ * @see org.mybatis.scripting.freemarker.support.CountStatementResolver
+ *
+ * @since 1.3.3
+ */
+public class CountSqlSource implements SqlSource {
+  private static final String COUNT_PREFIX = "SELECT COUNT(*) FROM (";
+  private static final String COUNT_SUFFIX = "\n) count_";
+
+  private final SqlSource sqlSource;
+  private final Configuration configuration;
+
+  public CountSqlSource(SqlSource sqlSource, Configuration configuration) {
+    this.sqlSource = sqlSource;
+    this.configuration = configuration;
+  }
+
+  @Override
+  public BoundSql getBoundSql(Object parameterObject) {
+    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    String sql = boundSql.getSql();
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+
+    // A locking clause is not allowed in a derived table, and counting rows does not need to lock them
+    int lockingClauseIndex = findLockingClauseIndex(sql);
+    if (lockingClauseIndex >= 0) {
+      int strippedPlaceholders = countStrippedPlaceholders(sql, lockingClauseIndex, parameterMappings.size());
+      if (strippedPlaceholders < 0) {
+        throw new IllegalStateException(
+            "Cannot remove the locking clause for the count query because the placeholders cannot be located. sql:["
+                + sql + "]");
+      }
+      sql = sql.substring(0, lockingClauseIndex);
+      parameterMappings = removeLast(parameterMappings, strippedPlaceholders);
+    }
+
+    int orderByIndex = findOrderByIndex(sql);
+    if (orderByIndex >= 0) {
+      int strippedPlaceholders = countStrippedPlaceholders(sql, orderByIndex, parameterMappings.size());
+      // The ORDER BY clause is kept when its placeholders cannot be located (e.g. a driver specific operator)
+      if (strippedPlaceholders >= 0) {
+        sql = sql.substring(0, orderByIndex);
+        parameterMappings = removeLast(parameterMappings, strippedPlaceholders);
+      }
+    }
+
+    BoundSql countBoundSql = new BoundSql(configuration, COUNT_PREFIX + sql.trim() + COUNT_SUFFIX, parameterMappings,
+        parameterObject);
+    boundSql.getAdditionalParameters().forEach(countBoundSql::setAdditionalParameter);
+    if (boundSql.getAdditionalParameters().containsKey(FreeMarkerSqlSource.SHAPE_ID_KEY)) {
+      // The shape id of original SQL should not be used for the count query
+      countBoundSql.setAdditionalParameter(FreeMarkerSqlSource.SHAPE_ID_KEY,
+          FreeMarkerSqlSource.toShapeId(countBoundSql.getSql()));
+    }
+    return countBoundSql;
+  }
+
+  /**
+   * Find the start index of the trailing top-level {@code ORDER BY} clause that can be removed safely.
+   *
+   * @param sql
+   *          a rendered SQL
+   *
+   * @return the start index of {@code ORDER BY} clause, or {@code -1} if it cannot be removed
+   */
+  static int findOrderByIndex(String sql) {
+    int orderByIndex = -1;
+    int depth = 0;
+    int length = sql.length();
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      int next = skipLiteralOrComment(sql, i);
+      if (next > i) {
+        i = next;
+      } else if (c == '(') {
+        depth++;
+        i++;
+      } else if (c == ')') {
+        depth--;
+        i++;
+      } else if (isWordStart(sql, i)) {
+        int end = skipWord(sql, i);
+        if (depth == 0) {
+          String word = sql.substring(i, end);
+          if ("ORDER".equalsIgnoreCase(word)) {
+            if ("BY".equalsIgnoreCase(nextWord(sql, end))) {
+              orderByIndex = i;
+            }
+          } else if (orderByIndex >= 0 && isRowLimitingKeyword(word)) {
+            // Removing ORDER BY changes the rows that are counted
+            return -1;
+          }
+        }
+        i = end;
+      } else {
+        i++;
+      }
+    }
+    return orderByIndex;
+  }
+
+  /**
+   * Find the start index of the top-level locking clause (e.g. {@code FOR UPDATE}, {@code FOR SHARE},
+   * {@code FOR NO KEY UPDATE} or {@code FOR KEY SHARE}), that is the last clause of a query.
+   *
+   * @param sql
+   *          a rendered SQL
+   *
+   * @return the start index of locking clause, or {@code -1} if not found
+   */
+  static int findLockingClauseIndex(String sql) {
+    int depth = 0;
+    int length = sql.length();
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      int next = skipLiteralOrComment(sql, i);
+      if (next > i) {
+        i = next;
+      } else if (c == '(') {
+        depth++;
+        i++;
+      } else if (c == ')') {
+        depth--;
+        i++;
+      } else if (isWordStart(sql, i)) {
+        int end = skipWord(sql, i);
+        if (depth == 0 && "FOR".equalsIgnoreCase(sql.substring(i, end))
+            && isLockingKeyword(nextWord(sql, end))) {
+          return i;
+        }
+        i = end;
+      } else {
+        i++;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Count the {@code ?} placeholders that are not enclosed by quotes or comments. The {@code ??} is not counted,
+   * because it is the escape of {@code ?} operator (e.g. the JSON operators of PostgreSQL).
+   *
+   * @param sql
+   *          a part of rendered SQL
+   *
+   * @return the number of placeholders
+   */
+  static int countPlaceholders(String sql) {
+    int count = 0;
+    int length = sql.length();
+    int i = 0;
+    while (i < length) {
+      int next = skipLiteralOrComment(sql, i);
+      if (next > i) {
+        i = next;
+      } else if (sql.charAt(i) == '?') {
+        if (i + 1 < length && sql.charAt(i + 1) == '?') {
+          i += 2;
+        } else {
+          count++;
+          i++;
+        }
+      } else {
+        i++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Count the placeholders of the clause that is removed.
+   *
+   * @return the number of placeholders from the start index, or {@code -1} if they cannot be located (the placeholders
+   *         of whole SQL do not match with the parameter mappings)
+   */
+  private static int countStrippedPlaceholders(String sql, int start, int parameterCount) {
+    if (sql.indexOf('?', start) < 0) {
+      return 0;
+    }
+    int strippedPlaceholders = countPlaceholders(sql.substring(start));
+    return countPlaceholders(sql.substring(0, start)) + strippedPlaceholders == parameterCount ? strippedPlaceholders
+        : -1;
+  }
+
+  private static List<ParameterMapping> removeLast(List<ParameterMapping> parameterMappings, int count) {
+    // Placeholders inside the stripped clause are always the last ones
+    return count == 0 ? parameterMappings
+        : new ArrayList<>(parameterMappings.subList(0, parameterMappings.size() - count));
+  }
+
+  /**
+   * Skip a quoted literal (or identifier) or a comment.
+   *
+   * @return the index after it, or the given index if it does not start there
+   */
+  private static int skipLiteralOrComment(String sql, int i) {
+    char c = sql.charAt(i);
+    int length = sql.length();
+    if (c == '\'' || c == '"' || c == '`') {
+      return skipQuoted(sql, i, c);
+    } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+      int end = sql.indexOf('\n', i);
+      return end < 0 ? length : end + 1;
+    } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+      int end = sql.indexOf("*/", i + 2);
+      return end < 0 ? length : end + 2;
+    }
+    return i;
+  }
+
+  private static boolean isWordStart(String sql, int i) {
+    return Character.isLetter(sql.charAt(i)) && (i == 0 || !isIdentifierPart(sql.charAt(i - 1)));
+  }
+
+  private static int skipWord(String sql, int i) {
+    int end = i;
+    while (end < sql.length() && isIdentifierPart(sql.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * Get the word that follows whitespaces.
+   *
+   * @return the word, or an empty string if no word follows
+   */
+  private static String nextWord(String sql, int end) {
+    int start = end;
+    while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+      start++;
+    }
+    return start > end && start < sql.length() && isWordStart(sql, start)
+        ? sql.substring(start, skipWord(sql, start)) : "";
+  }
+
+  private static int skipQuoted(String sql, int start, char quote) {
+    int i = start + 1;
+    int length = sql.length();
+    while (i < length) {
+      if (sql.charAt(i) == quote) {
+        if (i + 1 < length && sql.charAt(i + 1) == quote) {
+          i += 2;
+          continue;
+        }
+        return i + 1;
+      }
+      i++;
+    }
+    return length;
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+  }
+
+  private static boolean isLockingKeyword(String word) {
+    return "UPDATE".equalsIgnoreCase(word) || "SHARE".equalsIgnoreCase(word) || "NO".equalsIgnoreCase(word)
+        || "KEY".equalsIgnoreCase(word);
+  }
+
+  private static boolean isRowLimitingKeyword(String word) {
+    return "LIMIT".equalsIgnoreCase(word) || "OFFSET".equalsIgnoreCase(word) || "FETCH".equalsIgnoreCase(word)
+        || "FOR".equalsIgnoreCase(word);
+  }
+
+}
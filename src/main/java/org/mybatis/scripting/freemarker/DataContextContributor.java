@@ -0,0 +1,61 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+/**
+ * The SPI for contributing a variable into the data context of templates on demand. A contributor is invoked only when
+ * a template reads its key at first, and the result is memoized during the processing. So an expensive variable (e.g.
+ * tenant information or feature flags) costs nothing for templates that do not use it.
+ * <p>
+ * A parameter that has the same name has priority over the contributor. Contributors are registered via
+ * {@link FreeMarkerLanguageDriverConfig#getDataContextContributors()} (or {@code data-context-contributors} property
+ * that specifies class names separated by comma).
+ * </p>
+ *
+ * <pre>
+ * public class TenantContributor implements DataContextContributor {
+ *   public String getKey() {
+ *     return "tenant";
+ *   }
+ *
+ *   public Object contribute(Object parameterObject) {
+ *     return TenantContext.current();
+ *   }
+ * }
+ * </pre>
+ *
+ * @since 1.3.3
+ */
+public interface DataContextContributor {
+
+  /**
+   * Get the key of variable that this contributor provides.
+   *
+   * @return the variable name
+   */
+  String getKey();
+
+  /**
+   * Create the value of variable. It is called at most once per template processing.
+   *
+   * @param parameterObject
+   *          the parameter object of statement (can be null)
+   *
+   * @return the value of variable (can be null)
+   */
+  Object contribute(Object parameterObject);
+
+}
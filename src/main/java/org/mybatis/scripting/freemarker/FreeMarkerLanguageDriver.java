@@ -31,8 +31,13 @@ import org.mybatis.scripting.freemarker.support.TemplateFilePathProvider;
 
 import freemarker.cache.ClassTemplateLoader;
 import freemarker.cache.TemplateLoader;
+import freemarker.ext.beans.BeansWrapper;
+import freemarker.ext.beans.BeansWrapperBuilder;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
 
 /**
  * Adds FreeMarker templates support to scripting in MyBatis. If you want to change or extend template loader
@@ -43,6 +48,8 @@ import freemarker.template.TemplateException;
  */
 public class FreeMarkerLanguageDriver implements LanguageDriver {
 
+  private static final String DATABASE_ID_LOOKUP_CONDITION_PREFIX = "_databaseId:";
+
   protected final FreeMarkerLanguageDriverConfig driverConfig;
   protected final freemarker.template.Configuration freemarkerCfg;
 
@@ -96,9 +103,54 @@ public class FreeMarkerLanguageDriver implements LanguageDriver {
       }
     });
 
+    // To wrap records, primitive arrays and single-pass collections with specialised models (opt-in, and can be
+    // overridden by 'object_wrapper' setting). It is created after the settings for following the
+    // 'incompatible_improvements' setting.
+    if (driverConfig.isParamObjectWrapperEnabled() && !cfg.isObjectWrapperExplicitlySet()) {
+      ParamObjectWrapper objectWrapper = new ParamObjectWrapper(cfg.getIncompatibleImprovements());
+      objectWrapper.writeProtect();
+      cfg.setObjectWrapper(objectWrapper);
+    }
+
+    registerSharedVariables(cfg);
+    TemplateLibraries.register(cfg, driverConfig.getAutoImports(), driverConfig.getAutoIncludes());
+
     return cfg;
   }
 
+  private void registerSharedVariables(freemarker.template.Configuration cfg) {
+    driverConfig.getSharedVariables().forEach((name, value) -> {
+      try {
+        cfg.setSharedVariable(name, value);
+      } catch (TemplateModelException e) {
+        throw new IllegalStateException(String.format("Fail to configure FreeMarker shared variable. name[%s]", name), e);
+      }
+    });
+    if (driverConfig.getSharedStatics().isEmpty() && driverConfig.getSharedEnums().isEmpty()) {
+      return;
+    }
+    BeansWrapper beansWrapper = cfg.getObjectWrapper() instanceof BeansWrapper ? (BeansWrapper) cfg.getObjectWrapper()
+        : new BeansWrapperBuilder(cfg.getIncompatibleImprovements()).build();
+    driverConfig.getSharedStatics().forEach((name, className) -> cfg.setSharedVariable(name,
+        getSharedClassModel(beansWrapper.getStaticModels(), name, className)));
+    driverConfig.getSharedEnums().forEach((name, className) -> cfg.setSharedVariable(name,
+        getSharedClassModel(beansWrapper.getEnumModels(), name, className)));
+  }
+
+  private static TemplateModel getSharedClassModel(TemplateHashModel models, String name, String className) {
+    try {
+      TemplateModel model = models.get(className.trim());
+      if (model == null) {
+        throw new IllegalStateException(
+            String.format("Fail to configure FreeMarker shared class. name[%s] class[%s]", name, className));
+      }
+      return model;
+    } catch (TemplateModelException e) {
+      throw new IllegalStateException(
+          String.format("Fail to configure FreeMarker shared class. name[%s] class[%s]", name, className), e);
+    }
+  }
+
   /**
    * Creates a {@link ParameterHandler} that passes the actual parameters to the the JDBC statement.
    *
@@ -161,7 +213,7 @@ public class FreeMarkerLanguageDriver implements LanguageDriver {
   }
 
   protected SqlSource createSqlSource(Template template, Configuration configuration) {
-    return new FreeMarkerSqlSource(template, configuration, freemarkerCfg.getIncompatibleImprovements());
+    return new FreeMarkerSqlSource(template, configuration, freemarkerCfg.getIncompatibleImprovements(), driverConfig);
   }
 
   protected SqlSource createSqlSource(Configuration configuration, String scriptText) throws IOException {
@@ -170,8 +222,16 @@ public class FreeMarkerLanguageDriver implements LanguageDriver {
       // Consider that script is inline script
       template = new Template(null, new StringReader(scriptText), freemarkerCfg);
     } else {
-      // Consider that script is template name, trying to find the template in classpath
-      template = freemarkerCfg.getTemplate(scriptText.trim());
+      // Consider that script is template name, trying to find the template in classpath.
+      // The lookup condition keeps the specialized template apart from the one used by other database ids.
+      template = freemarkerCfg.getTemplate(scriptText.trim(), null,
+          DATABASE_ID_LOOKUP_CONDITION_PREFIX + configuration.getDatabaseId(), null, true, false);
+    }
+    if (driverConfig.isTemplateSpecializationEnabled()) {
+      TemplateSpecializer.specialize(template, configuration.getDatabaseId());
+    }
+    if (driverConfig.isSqlCompactionEnabled()) {
+      template = SqlCompactor.compact(template);
     }
 
     return createSqlSource(template, configuration);
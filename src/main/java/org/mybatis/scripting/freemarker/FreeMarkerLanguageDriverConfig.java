@@ -1,5 +1,5 @@
 /*
- *    Copyright 2015-2025 the original author or authors.
+ *    Copyright 2015-2026 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -21,8 +21,12 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -56,10 +60,22 @@ public class FreeMarkerLanguageDriverConfig {
     Map<Class<?>, Function<String, Object>> converters = new HashMap<>();
     converters.put(String.class, String::trim);
     converters.put(boolean.class, v -> Boolean.valueOf(v.trim()));
+    converters.put(int.class, v -> Integer.valueOf(v.trim()));
+    converters.put(long.class, v -> Long.valueOf(v.trim()));
     converters.put(Object.class, v -> v);
     TYPE_CONVERTERS = Collections.unmodifiableMap(converters);
   }
 
+  private static final Map<String, Function<String, Object>> PROPERTY_CONVERTERS;
+
+  static {
+    Map<String, Function<String, Object>> converters = new HashMap<>();
+    converters.put("dataContextContributors", FreeMarkerLanguageDriverConfig::createDataContextContributors);
+    converters.put("autoIncludes", FreeMarkerLanguageDriverConfig::splitNames);
+    converters.put("templateCompilation", v -> TemplateCompilation.valueOf(v.trim().toUpperCase(Locale.ENGLISH)));
+    PROPERTY_CONVERTERS = Collections.unmodifiableMap(converters);
+  }
+
   private static final Log log = LogFactory.getLog(FreeMarkerLanguageDriverConfig.class);
 
   /**
@@ -72,6 +88,81 @@ public class FreeMarkerLanguageDriverConfig {
    */
   private final TemplateFileConfig templateFile = new TemplateFileConfig();
 
+  /**
+   * The shared variables.
+   */
+  private final Map<String, Object> sharedVariables = new HashMap<>();
+
+  /**
+   * The class names of shared static models.
+   */
+  private final Map<String, String> sharedStatics = new HashMap<>();
+
+  /**
+   * The class names of shared enum models.
+   */
+  private final Map<String, String> sharedEnums = new HashMap<>();
+
+  /**
+   * The template names of auto-imported libraries.
+   */
+  private final Map<String, String> autoImports = new LinkedHashMap<>();
+
+  /**
+   * The template names of auto-included libraries.
+   */
+  private List<String> autoIncludes = new ArrayList<>();
+
+  /**
+   * The contributors that provide variables of data context on demand.
+   */
+  private List<DataContextContributor> dataContextContributors = new ArrayList<>();
+
+  /**
+   * Whether the parameter objects are wrapped with {@link ParamObjectWrapper}.
+   */
+  private boolean paramObjectWrapperEnabled;
+
+  /**
+   * Whether the branches that depend on the database id are pruned at loading.
+   */
+  private boolean templateSpecializationEnabled;
+
+  /**
+   * The mode of compiling templates into render plans.
+   */
+  private TemplateCompilation templateCompilation = TemplateCompilation.DISABLED;
+
+  /**
+   * Whether the rendered SQL is cached per shape of control flow.
+   */
+  private boolean shapeCacheEnabled;
+
+  /**
+   * Whether the shape id of rendered SQL is passed as an additional parameter.
+   */
+  private boolean shapeIdEnabled;
+
+  /**
+   * Whether the static text of templates is compacted at loading.
+   */
+  private boolean sqlCompactionEnabled;
+
+  /**
+   * The maximum number of characters of rendered SQL (zero or less means unlimited).
+   */
+  private int maxOutputChars;
+
+  /**
+   * The maximum number of generated parameters per rendering (zero or less means unlimited).
+   */
+  private int maxGeneratedParams;
+
+  /**
+   * The maximum time of a rendering in milliseconds (zero or less means unlimited).
+   */
+  private long maxRenderTimeMillis;
+
   /**
    * Get FreeMarker settings.
    *
@@ -121,6 +212,402 @@ public class FreeMarkerLanguageDriverConfig {
     return templateFile;
   }
 
+  /**
+   * Get shared variables. They are registered into the FreeMarker configuration once (wrapped once) and available from
+   * all templates.
+   * <p>
+   * Default is empty.
+   * </p>
+   *
+   * @return shared variables (key is variable name)
+   *
+   * @since 1.3.3
+   */
+  public Map<String, Object> getSharedVariables() {
+    return sharedVariables;
+  }
+
+  /**
+   * Get class names that expose static fields and methods as shared variables (e.g. {@code Constants.MAX_SIZE}).
+   * <p>
+   * Default is empty.
+   * </p>
+   *
+   * @return class names (key is variable name)
+   *
+   * @since 1.3.3
+   */
+  public Map<String, String> getSharedStatics() {
+    return sharedStatics;
+  }
+
+  /**
+   * Get enum class names that expose constants as shared variables (e.g. {@code Status.ACTIVE}).
+   * <p>
+   * Default is empty.
+   * </p>
+   *
+   * @return enum class names (key is variable name)
+   *
+   * @since 1.3.3
+   */
+  public Map<String, String> getSharedEnums() {
+    return sharedEnums;
+  }
+
+  /**
+   * Get template names of libraries that imported into all templates. They are loaded (and verified) at startup, and
+   * imported without looking up the template cache on each processing.
+   * <p>
+   * Default is empty.
+   * </p>
+   *
+   * @return template names (key is namespace)
+   *
+   * @since 1.3.3
+   */
+  public Map<String, String> getAutoImports() {
+    return autoImports;
+  }
+
+  /**
+   * Get template names of libraries that included at the beginning of all templates. They are loaded (and verified) at
+   * startup, and included without looking up the template cache on each processing.
+   * <p>
+   * Default is empty.
+   * </p>
+   *
+   * @return template names
+   *
+   * @since 1.3.3
+   */
+  public List<String> getAutoIncludes() {
+    return autoIncludes;
+  }
+
+  /**
+   * Set template names of libraries that included at the beginning of all templates.
+   *
+   * @param autoIncludes
+   *          template names
+   *
+   * @since 1.3.3
+   */
+  public void setAutoIncludes(List<String> autoIncludes) {
+    this.autoIncludes = autoIncludes;
+  }
+
+  /**
+   * Get data context contributors.
+   * <p>
+   * Default is empty.
+   * </p>
+   *
+   * @return data context contributors
+   *
+   * @since 1.3.3
+   */
+  public List<DataContextContributor> getDataContextContributors() {
+    return dataContextContributors;
+  }
+
+  /**
+   * Set data context contributors.
+   *
+   * @param dataContextContributors
+   *          data context contributors
+   *
+   * @since 1.3.3
+   */
+  public void setDataContextContributors(List<DataContextContributor> dataContextContributors) {
+    this.dataContextContributors = dataContextContributors;
+  }
+
+  /**
+   * Get the mode of compiling templates into render plans.
+   * <p>
+   * Default is {@link TemplateCompilation#DISABLED}. Note that the render plan is built from the internal (deprecated)
+   * template tree of FreeMarker and the canonical forms of its expressions, that are not a public contract, so the
+   * templates are always rendered by the interpreter when the tree of the FreeMarker version in use has an unexpected
+   * format. The {@link TemplateCompilation#VERIFY} mode is recommended for tests after upgrading FreeMarker.
+   * </p>
+   *
+   * @return the mode of compiling templates
+   *
+   * @since 1.3.3
+   */
+  public TemplateCompilation getTemplateCompilation() {
+    return templateCompilation;
+  }
+
+  /**
+   * Set the mode of compiling templates into render plans.
+   *
+   * @param templateCompilation
+   *          the mode of compiling templates
+   *
+   * @since 1.3.3
+   */
+  public void setTemplateCompilation(TemplateCompilation templateCompilation) {
+    this.templateCompilation = templateCompilation;
+  }
+
+  /**
+   * Get whether the rendered SQL and the parameter mappings are cached per shape of control flow.
+   * <p>
+   * The shape is the taken branches, the number of iterations and the text written by interpolations and
+   * {@code <@p>} directives. For a known shape, only the control flow and the values of generated parameters are
+   * evaluated, and the cached SQL is reused. It requires the template compilation, and it is applied to the templates
+   * that only use {@code <@p>}, {@code <@where>}, {@code <@set>} and {@code <@trim>} directives. Default is
+   * {@code false}.
+   * </p>
+   *
+   * @return If cache the rendered SQL per shape, return {@code true}
+   *
+   * @since 1.3.3
+   */
+  public boolean isShapeCacheEnabled() {
+    return shapeCacheEnabled;
+  }
+
+  /**
+   * Set whether the rendered SQL and the parameter mappings are cached per shape of control flow.
+   *
+   * @param shapeCacheEnabled
+   *          If cache the rendered SQL per shape, set {@code true}
+   *
+   * @since 1.3.3
+   */
+  public void setShapeCacheEnabled(boolean shapeCacheEnabled) {
+    this.shapeCacheEnabled = shapeCacheEnabled;
+  }
+
+  /**
+   * Get whether the shape id of rendered SQL is passed as an additional parameter of {@code BoundSql}.
+   * <p>
+   * The shape id is a compact hash of the SQL (see {@link FreeMarkerSqlSource#toShapeId(String)}) that is stored as
+   * {@value FreeMarkerSqlSource#SHAPE_ID_KEY}. It is computed once per static template and per cached shape (see
+   * {@link #isShapeCacheEnabled()}), and per call for other templates. Default is {@code false}.
+   * </p>
+   *
+   * @return If pass the shape id, return {@code true}
+   *
+   * @since 1.3.3
+   */
+  public boolean isShapeIdEnabled() {
+    return shapeIdEnabled;
+  }
+
+  /**
+   * Set whether the shape id of rendered SQL is passed as an additional parameter of {@code BoundSql}.
+   *
+   * @param shapeIdEnabled
+   *          If pass the shape id, set {@code true}
+   *
+   * @since 1.3.3
+   */
+  public void setShapeIdEnabled(boolean shapeIdEnabled) {
+    this.shapeIdEnabled = shapeIdEnabled;
+  }
+
+  /**
+   * Get whether the parameter objects are wrapped with {@link ParamObjectWrapper}.
+   * <p>
+   * The wrapper exposes records, {@code int[]}/{@code long[]} (without boxing the elements) and single-pass collections
+   * (e.g. {@link java.util.Iterator} and MyBatis {@code Cursor}) in the values of map parameters. The
+   * {@code object_wrapper} setting of FreeMarker takes precedence over it. Default is {@code false} (the default object
+   * wrapper of FreeMarker).
+   * </p>
+   *
+   * @return If wrap the parameter objects with {@link ParamObjectWrapper}, return {@code true}
+   *
+   * @since 1.3.3
+   */
+  public boolean isParamObjectWrapperEnabled() {
+    return paramObjectWrapperEnabled;
+  }
+
+  /**
+   * Set whether the parameter objects are wrapped with {@link ParamObjectWrapper}.
+   *
+   * @param paramObjectWrapperEnabled
+   *          If wrap the parameter objects with {@link ParamObjectWrapper}, set {@code true}
+   *
+   * @since 1.3.3
+   */
+  public void setParamObjectWrapperEnabled(boolean paramObjectWrapperEnabled) {
+    this.paramObjectWrapperEnabled = paramObjectWrapperEnabled;
+  }
+
+  /**
+   * Get whether the static text of templates is compacted when a statement is loaded.
+   * <p>
+   * The whitespace runs are collapsed into a single space and the SQL comments are dropped. The string literals,
+   * quoted identifiers and optimizer hints are kept as they are, and the rest of a template is not compacted when a
+   * dialect specific construct is found. Default is {@code false}. Note that it rewrites the text nodes of the internal
+   * (deprecated) template tree of FreeMarker, that is not a public contract, so it is disabled with a warning when the
+   * tree of the FreeMarker version in use has an unexpected format.
+   * </p>
+   *
+   * @return If compact the static text, return {@code true}
+   *
+   * @since 1.3.3
+   */
+  public boolean isSqlCompactionEnabled() {
+    return sqlCompactionEnabled;
+  }
+
+  /**
+   * Get whether the branches that depend on the database id are pruned when a statement is loaded (see
+   * {@link TemplateSpecializer}).
+   * <p>
+   * The conditions that only compare {@code _databaseId} with string literals are evaluated once, and the dead branches
+   * are removed from the template tree. Default is {@code false}. Note that it modifies the internal (deprecated)
+   * template tree of FreeMarker, that is not a public contract, so it is disabled with a warning when the tree of the
+   * FreeMarker version in use has an unexpected format.
+   * </p>
+   *
+   * @return If prune the branches, return {@code true}
+   *
+   * @since 1.3.3
+   */
+  public boolean isTemplateSpecializationEnabled() {
+    return templateSpecializationEnabled;
+  }
+
+  /**
+   * Set whether the branches that depend on the database id are pruned when a statement is loaded.
+   *
+   * @param templateSpecializationEnabled
+   *          If prune the branches, set {@code true}
+   *
+   * @since 1.3.3
+   */
+  public void setTemplateSpecializationEnabled(boolean templateSpecializationEnabled) {
+    this.templateSpecializationEnabled = templateSpecializationEnabled;
+  }
+
+  /**
+   * Set whether the static text of templates is compacted when a statement is loaded.
+   *
+   * @param sqlCompactionEnabled
+   *          If compact the static text, set {@code true}
+   *
+   * @since 1.3.3
+   */
+  public void setSqlCompactionEnabled(boolean sqlCompactionEnabled) {
+    this.sqlCompactionEnabled = sqlCompactionEnabled;
+  }
+
+  /**
+   * Get the maximum number of characters of rendered SQL.
+   * <p>
+   * The length is checked at each write while rendering, and the rendering fails with an
+   * {@link IllegalStateException} (that reports the statement id and the observed sizes) when it is exceeded. Default
+   * is {@code 0} (unlimited).
+   * </p>
+   *
+   * @return the maximum number of characters (zero or less means unlimited)
+   *
+   * @since 1.3.3
+   */
+  public int getMaxOutputChars() {
+    return maxOutputChars;
+  }
+
+  /**
+   * Set the maximum number of characters of rendered SQL.
+   *
+   * @param maxOutputChars
+   *          the maximum number of characters (zero or less means unlimited)
+   *
+   * @since 1.3.3
+   */
+  public void setMaxOutputChars(int maxOutputChars) {
+    this.maxOutputChars = maxOutputChars;
+  }
+
+  /**
+   * Get the maximum number of generated parameters (e.g. by {@code <@p>}) per rendering.
+   * <p>
+   * The number counts the binds of generated parameters (each element of an array that is bound by
+   * {@code <@p values=.../>} is a bind), and it is checked at each bind. The rendering fails with an
+   * {@link IllegalStateException} when it is exceeded. Default is {@code 0} (unlimited).
+   * </p>
+   *
+   * @return the maximum number of generated parameters (zero or less means unlimited)
+   *
+   * @since 1.3.3
+   */
+  public int getMaxGeneratedParams() {
+    return maxGeneratedParams;
+  }
+
+  /**
+   * Set the maximum number of generated parameters per rendering.
+   *
+   * @param maxGeneratedParams
+   *          the maximum number of generated parameters (zero or less means unlimited)
+   *
+   * @since 1.3.3
+   */
+  public void setMaxGeneratedParams(int maxGeneratedParams) {
+    this.maxGeneratedParams = maxGeneratedParams;
+  }
+
+  /**
+   * Get the maximum time of a rendering in milliseconds.
+   * <p>
+   * The elapsed time is checked at each write and each generated parameter (it does not interrupt the evaluation of a
+   * directive or a method), and the rendering fails with an {@link IllegalStateException} when it is exceeded. Default
+   * is {@code 0} (unlimited).
+   * </p>
+   *
+   * @return the maximum time in milliseconds (zero or less means unlimited)
+   *
+   * @since 1.3.3
+   */
+  public long getMaxRenderTimeMillis() {
+    return maxRenderTimeMillis;
+  }
+
+  /**
+   * Set the maximum time of a rendering in milliseconds.
+   *
+   * @param maxRenderTimeMillis
+   *          the maximum time in milliseconds (zero or less means unlimited)
+   *
+   * @since 1.3.3
+   */
+  public void setMaxRenderTimeMillis(long maxRenderTimeMillis) {
+    this.maxRenderTimeMillis = maxRenderTimeMillis;
+  }
+
+  /**
+   * The mode of compiling templates into render plans. A template that consists of the supported subset of FTL
+   * ({@code #if}, {@code #list}, {@code #assign}, interpolations and directive calls such as {@code <@p>}) is compiled
+   * when it is loaded, and rendered without interpreting the template tree. The other templates are rendered by the
+   * FreeMarker interpreter. Whether a template is compiled is decided when it is loaded, so a call is never rendered
+   * twice (except the {@link #VERIFY} mode). Calling a {@code TemplateTransformModel} from a compiled template fails.
+   *
+   * @since 1.3.3
+   */
+  public enum TemplateCompilation {
+    /**
+     * Templates are always rendered by the FreeMarker interpreter.
+     */
+    DISABLED,
+    /**
+     * Templates are rendered by the render plan if possible.
+     */
+    ENABLED,
+    /**
+     * Templates are rendered both ways, and an {@link IllegalStateException} is thrown when the SQL or parameters
+     * differ. It is designed for tests.
+     */
+    VERIFY
+  }
+
   /**
    * Template file configuration.
    */
@@ -336,6 +823,82 @@ public class FreeMarkerLanguageDriverConfig {
    * <td>None(just under classpath)</td>
    * </tr>
    * <tr>
+   * <td>shared-variables.*</td>
+   * <td>The shared variables (string value)</td>
+   * <td>-</td>
+   * </tr>
+   * <tr>
+   * <td>shared-statics.*</td>
+   * <td>The class names that expose static fields and methods</td>
+   * <td>-</td>
+   * </tr>
+   * <tr>
+   * <td>shared-enums.*</td>
+   * <td>The enum class names that expose constants</td>
+   * <td>-</td>
+   * </tr>
+   * <tr>
+   * <td>auto-imports.*</td>
+   * <td>The template names of libraries that imported into all templates (key is namespace)</td>
+   * <td>-</td>
+   * </tr>
+   * <tr>
+   * <td>auto-includes</td>
+   * <td>The template names of libraries that included into all templates separated by comma</td>
+   * <td>None</td>
+   * </tr>
+   * <tr>
+   * <td>data-context-contributors</td>
+   * <td>The class names of {@link DataContextContributor} separated by comma</td>
+   * <td>None</td>
+   * </tr>
+   * <tr>
+   * <td>param-object-wrapper-enabled</td>
+   * <td>Whether wrap the parameter objects with {@link ParamObjectWrapper} (records, primitive arrays and single-pass
+   * collections)</td>
+   * <td>{@code false}</td>
+   * </tr>
+   * <tr>
+   * <td>template-specialization-enabled</td>
+   * <td>Whether prune the branches that only compare {@code _databaseId} with literals at loading</td>
+   * <td>{@code false}</td>
+   * </tr>
+   * <tr>
+   * <td>template-compilation</td>
+   * <td>The mode of compiling templates into render plans ({@code disabled}, {@code enabled} or {@code verify})</td>
+   * <td>{@code disabled}</td>
+   * </tr>
+   * <tr>
+   * <td>shape-cache-enabled</td>
+   * <td>Whether cache the rendered SQL per shape of control flow (requires template compilation)</td>
+   * <td>{@code false}</td>
+   * </tr>
+   * <tr>
+   * <td>shape-id-enabled</td>
+   * <td>Whether pass the shape id (hash) of rendered SQL as an additional parameter {@code _shapeId}</td>
+   * <td>{@code false}</td>
+   * </tr>
+   * <tr>
+   * <td>sql-compaction-enabled</td>
+   * <td>Whether collapse whitespace and drop comments in the static text of templates at loading</td>
+   * <td>{@code false}</td>
+   * </tr>
+   * <tr>
+   * <td>max-output-chars</td>
+   * <td>The maximum number of characters of rendered SQL (zero means unlimited)</td>
+   * <td>{@code 0}</td>
+   * </tr>
+   * <tr>
+   * <td>max-generated-params</td>
+   * <td>The maximum number of generated parameters per rendering (zero means unlimited)</td>
+   * <td>{@code 0}</td>
+   * </tr>
+   * <tr>
+   * <td>max-render-time-millis</td>
+   * <td>The maximum time of a rendering in milliseconds (zero means unlimited)</td>
+   * <td>{@code 0}</td>
+   * </tr>
+   * <tr>
    * <td>freemarker-settings.*</td>
    * <td>The settings of freemarker {@link freemarker.core.Configurable#setSetting(String, String)}).</td>
    * <td>-</td>
@@ -389,12 +952,38 @@ public class FreeMarkerLanguageDriverConfig {
     properties.forEach((key, value) -> {
       String propertyPath = WordUtils.uncapitalize(WordUtils.capitalize(Objects.toString(key), '-').replace("-", ""));
       Optional.ofNullable(value).ifPresent(v -> {
-        Object convertedValue = TYPE_CONVERTERS.get(metaObject.getSetterType(propertyPath)).apply(value.toString());
+        Function<String, Object> converter = PROPERTY_CONVERTERS.getOrDefault(propertyPath,
+            TYPE_CONVERTERS.get(metaObject.getSetterType(propertyPath)));
+        Object convertedValue = converter.apply(value.toString());
         metaObject.setValue(propertyPath, convertedValue);
       });
     });
   }
 
+  private static List<DataContextContributor> createDataContextContributors(String classNames) {
+    List<DataContextContributor> contributors = new ArrayList<>();
+    for (String className : splitNames(classNames)) {
+      try {
+        Class<?> contributorClass = Resources.classForName(className);
+        contributors.add((DataContextContributor) contributorClass.getConstructor().newInstance());
+      } catch (ReflectiveOperationException | ClassCastException e) {
+        throw new IllegalStateException(
+            String.format("Failed to create the data context contributor. class[%s]", className), e);
+      }
+    }
+    return contributors;
+  }
+
+  private static List<String> splitNames(String names) {
+    List<String> list = new ArrayList<>();
+    for (String name : names.split(",")) {
+      if (!name.trim().isEmpty()) {
+        list.add(name.trim());
+      }
+    }
+    return list;
+  }
+
   private static Properties loadDefaultProperties() {
     return loadProperties(System.getProperty(PROPERTY_KEY_CONFIG_FILE, DEFAULT_PROPERTIES_FILE));
   }
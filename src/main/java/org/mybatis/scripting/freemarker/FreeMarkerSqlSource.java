@@ -15,22 +15,33 @@
  */
 package org.mybatis.scripting.freemarker;
 
-import java.io.CharArrayWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.session.Configuration;
 
+import freemarker.core.Environment;
+import freemarker.template.ObjectWrapper;
 import freemarker.template.SimpleScalar;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateScalarModel;
 import freemarker.template.Version;
+import freemarker.template.utility.NullWriter;
 
 /**
  * Applies provided parameter(s) to FreeMarker template. Then passes the result into default MyBatis engine (and it
@@ -43,14 +54,167 @@ public class FreeMarkerSqlSource implements SqlSource {
   private final Configuration configuration;
   private final Version incompatibleImprovementsVersion;
   private final String databaseId;
+  private final String specializedDatabaseId;
+  private final Map<String, DataContextContributor> dataContextContributors;
+  private final SqlSource staticSqlSource;
+  private final FreeMarkerLanguageDriverConfig.TemplateCompilation templateCompilation;
+  private final RenderPlan renderPlan;
+  private final ConcurrentMap<String, Shape> shapes;
+  private final boolean shapeIdEnabled;
+  private final String staticShapeId;
+  private final RenderLimits renderLimits;
+  private volatile SqlSource countSqlSource;
 
   public static final String GENERATED_PARAMS_KEY = "__GENERATED__";
 
+  /**
+   * The key of additional parameter that holds the shape id of rendered SQL (see {@link #toShapeId(String)}).
+   *
+   * @since 1.3.3
+   */
+  public static final String SHAPE_ID_KEY = "_shapeId";
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /**
+   * The maximum number of cached shapes per statement.
+   */
+  private static final int MAX_SHAPES = 256;
+
+  private static final Map<String, TemplateModel> BUILT_IN_DIRECTIVES;
+
+  static {
+    Map<String, TemplateModel> directives = new LinkedHashMap<>();
+    directives.put(WhereDirective.DEFAULT_KEY, new WhereDirective());
+    directives.put(SetDirective.DEFAULT_KEY, new SetDirective());
+    directives.put(TrimDirective.DEFAULT_KEY, new TrimDirective());
+    directives.put(RowValueInDirective.DEFAULT_KEY, new RowValueInDirective());
+    directives.put(RowsDirective.DEFAULT_KEY, new RowsDirective());
+    directives.put(MemoDirective.DEFAULT_KEY, new MemoDirective());
+    directives.put(CachedDirective.DEFAULT_KEY, new CachedDirective());
+    BUILT_IN_DIRECTIVES = Collections.unmodifiableMap(directives);
+  }
+
   public FreeMarkerSqlSource(Template template, Configuration configuration, Version incompatibleImprovementsVersion) {
+    this(template, configuration, incompatibleImprovementsVersion, Collections.emptyList());
+  }
+
+  /**
+   * Constructor with data context contributors.
+   *
+   * @param template
+   *          the FreeMarker template
+   * @param configuration
+   *          the MyBatis configuration
+   * @param incompatibleImprovementsVersion
+   *          the incompatible improvements version of FreeMarker
+   * @param dataContextContributors
+   *          the contributors that provide variables on demand
+   *
+   * @since 1.3.3
+   */
+  public FreeMarkerSqlSource(Template template, Configuration configuration, Version incompatibleImprovementsVersion,
+      List<DataContextContributor> dataContextContributors) {
+    this(template, configuration, incompatibleImprovementsVersion, dataContextContributors,
+        FreeMarkerLanguageDriverConfig.TemplateCompilation.DISABLED);
+  }
+
+  /**
+   * Constructor with data context contributors and the mode of compiling the template.
+   *
+   * @param template
+   *          the FreeMarker template
+   * @param configuration
+   *          the MyBatis configuration
+   * @param incompatibleImprovementsVersion
+   *          the incompatible improvements version of FreeMarker
+   * @param dataContextContributors
+   *          the contributors that provide variables on demand
+   * @param templateCompilation
+   *          the mode of compiling the template into a render plan
+   *
+   * @since 1.3.3
+   */
+  public FreeMarkerSqlSource(Template template, Configuration configuration, Version incompatibleImprovementsVersion,
+      List<DataContextContributor> dataContextContributors,
+      FreeMarkerLanguageDriverConfig.TemplateCompilation templateCompilation) {
+    this(template, configuration, incompatibleImprovementsVersion, dataContextContributors, templateCompilation, false,
+        false, RenderLimits.UNLIMITED);
+  }
+
+  /**
+   * Constructor with the language driver configuration.
+   *
+   * @param template
+   *          the FreeMarker template
+   * @param configuration
+   *          the MyBatis configuration
+   * @param incompatibleImprovementsVersion
+   *          the incompatible improvements version of FreeMarker
+   * @param driverConfig
+   *          the language driver configuration
+   *
+   * @since 1.3.3
+   */
+  public FreeMarkerSqlSource(Template template, Configuration configuration, Version incompatibleImprovementsVersion,
+      FreeMarkerLanguageDriverConfig driverConfig) {
+    this(template, configuration, incompatibleImprovementsVersion, driverConfig.getDataContextContributors(),
+        driverConfig.getTemplateCompilation(), driverConfig.isShapeCacheEnabled(), driverConfig.isShapeIdEnabled(),
+        RenderLimits.of(driverConfig));
+  }
+
+  private FreeMarkerSqlSource(Template template, Configuration configuration, Version incompatibleImprovementsVersion,
+      List<DataContextContributor> dataContextContributors,
+      FreeMarkerLanguageDriverConfig.TemplateCompilation templateCompilation, boolean shapeCacheEnabled,
+      boolean shapeIdEnabled, RenderLimits renderLimits) {
     this.template = template;
     this.configuration = configuration;
     this.incompatibleImprovementsVersion = incompatibleImprovementsVersion;
     this.databaseId = configuration.getDatabaseId();
+    this.specializedDatabaseId = TemplateSpecializer.getSpecializedDatabaseId(template);
+    Map<String, DataContextContributor> contributors = new HashMap<>();
+    for (DataContextContributor contributor : dataContextContributors) {
+      if (contributors.putIfAbsent(contributor.getKey(), contributor) != null) {
+        throw new IllegalArgumentException(
+            "The data context contributor for key '" + contributor.getKey() + "' is duplicated.");
+      }
+    }
+    this.dataContextContributors = contributors.isEmpty() ? Collections.emptyMap() : contributors;
+    this.staticSqlSource = createStaticSqlSource();
+    this.templateCompilation = templateCompilation;
+    this.renderPlan = staticSqlSource == null
+        && templateCompilation != FreeMarkerLanguageDriverConfig.TemplateCompilation.DISABLED
+        && TemplateLibraries.of(template.getConfiguration()) == null ? RenderPlan.compile(template) : null;
+    this.shapes = renderPlan != null && shapeCacheEnabled ? new ConcurrentHashMap<>() : null;
+    this.shapeIdEnabled = shapeIdEnabled;
+    this.staticShapeId = staticSqlSource != null && shapeIdEnabled
+        ? toShapeId(staticSqlSource.getBoundSql(null).getSql()) : null;
+    this.renderLimits = renderLimits;
+  }
+
+  /**
+   * Creates the {@link SqlSource} for the template that consists of static text only, so it is rendered only once.
+   *
+   * @return the static SQL source, or {@code null} if the template should be rendered per call
+   */
+  private SqlSource createStaticSqlSource() {
+    if (!TemplateSpecializer.isStatic(template) || TemplateLibraries.of(template.getConfiguration()) != null) {
+      return null;
+    }
+    SqlBuffer writer = new SqlBuffer();
+    try {
+      template.process(Collections.emptyMap(), writer);
+    } catch (TemplateException | IOException e) {
+      return null;
+    }
+    String sql = writer.toString();
+    if (sql.contains("#{")) {
+      // The parameter type is needed for resolving the type handlers
+      return null;
+    }
+    return new SqlSourceBuilder(configuration).parse(sql, Object.class, Collections.emptyMap());
   }
 
   /**
@@ -59,23 +223,246 @@ public class FreeMarkerSqlSource implements SqlSource {
    */
   protected Object preProcessDataContext(Object dataContext, boolean isMap) {
     if (isMap) {
-      ((Map<String, Object>) dataContext).put(MyBatisParamDirective.DEFAULT_KEY, new MyBatisParamDirective());
-      ((Map<String, Object>) dataContext).put(MyBatisParamDirective.DATABASE_ID_KEY, new SimpleScalar(this.databaseId));
+      Map<String, Object> map = (Map<String, Object>) dataContext;
+      map.put(MyBatisParamDirective.DEFAULT_KEY, new MyBatisParamDirective());
+      map.put(MyBatisParamDirective.DATABASE_ID_KEY, new SimpleScalar(this.databaseId));
+      // Built-in directives should not hide the parameters that have same name
+      BUILT_IN_DIRECTIVES.forEach(map::putIfAbsent);
     } else {
-      ((ParamObjectAdapter) dataContext).putAdditionalParam(MyBatisParamDirective.DEFAULT_KEY,
-          new MyBatisParamDirective());
-      ((ParamObjectAdapter) dataContext).putAdditionalParam(MyBatisParamDirective.DATABASE_ID_KEY,
-          new SimpleScalar(this.databaseId));
+      ParamObjectAdapter adapter = (ParamObjectAdapter) dataContext;
+      adapter.putAdditionalParam(MyBatisParamDirective.DEFAULT_KEY, new MyBatisParamDirective());
+      adapter.putAdditionalParam(MyBatisParamDirective.DATABASE_ID_KEY, new SimpleScalar(this.databaseId));
+      BUILT_IN_DIRECTIVES.forEach(adapter::putAdditionalParam);
     }
     return dataContext;
   }
 
   @Override
   public BoundSql getBoundSql(Object parameterObject) {
+    BoundSqlMemo memo = staticSqlSource == null ? BoundSqlMemo.current() : null;
+    if (memo == null) {
+      return getBoundSql(parameterObject, null);
+    }
+    // The result is reused while the invocation scope is open (see BoundSqlMemo)
+    BoundSql boundSql = memo.get(this, parameterObject, configuration);
+    if (boundSql == null) {
+      boundSql = getBoundSql(parameterObject, null);
+      memo.put(this, parameterObject, boundSql, configuration);
+    }
+    return boundSql;
+  }
+
+  /**
+   * Get the bound SQLs for many parameter objects (e.g. the rows of a batch) at once. An SQL that is identical with the
+   * previous one (and has the same parameter types) is not parsed again, and the bound SQLs share the parameter
+   * mappings. The bound SQLs are grouped by the SQL in order of first appearance, so that one prepared statement can be
+   * reused per group. Note that the order of the parameter objects is kept only within a group.
+   *
+   * @param parameterObjects
+   *          the parameter objects
+   *
+   * @return the groups of bound SQLs (key is the SQL)
+   *
+   * @since 1.3.3
+   */
+  public Map<String, List<BoundSql>> getBoundSqlGroups(List<?> parameterObjects) {
+    Map<String, SqlSource> parsedSqls = new HashMap<>();
+    Map<String, List<BoundSql>> groups = new LinkedHashMap<>();
+    for (Object parameterObject : parameterObjects) {
+      BoundSql boundSql = getBoundSql(parameterObject, parsedSqls);
+      groups.computeIfAbsent(boundSql.getSql(), k -> new ArrayList<>()).add(boundSql);
+    }
+    return groups;
+  }
+
+  private BoundSql getBoundSql(Object parameterObject, Map<String, SqlSource> parsedSqls) {
+    RenderLimits.Budget budget = renderLimits.start();
+    try {
+      return getBoundSql(parameterObject, parsedSqls, budget);
+    } catch (RuntimeException e) {
+      RenderLimits.ExceededException exceeded = RenderLimits.findExceeded(e);
+      if (exceeded == null) {
+        throw e;
+      }
+      throw new IllegalStateException(
+          String.format("The rendering of statement '%s' is aborted. %s", getStatementId(), exceeded.getMessage()),
+          exceeded);
+    }
+  }
+
+  private BoundSql getBoundSql(Object parameterObject, Map<String, SqlSource> parsedSqls, RenderLimits.Budget budget) {
+    if (staticSqlSource != null) {
+      BoundSql boundSql = staticSqlSource.getBoundSql(parameterObject);
+      if (budget != null) {
+        budget.checkOutputChars(boundSql.getSql().length());
+      }
+      return withShapeId(boundSql, staticShapeId);
+    }
+
+    List generatedParams = budget == null ? new ArrayList<>() : budget.newGeneratedParams();
+    String shapeKey = shapes == null ? null : walk(parameterObject, generatedParams);
+    if (shapeKey != null) {
+      Shape shape = shapes.get(shapeKey);
+      if (shape != null) {
+        // Only the values of generated params are evaluated for the known shape
+        if (templateCompilation == FreeMarkerLanguageDriverConfig.TemplateCompilation.VERIFY) {
+          verify(parameterObject, shape.sql, generatedParams);
+        }
+        return withShapeId(toBoundSql(shape.sqlSource, parameterObject, generatedParams), shape.id);
+      }
+      generatedParams.clear();
+    }
+
+    String sql = render(parameterObject, generatedParams, renderPlan, budget);
+    if (renderPlan != null && templateCompilation == FreeMarkerLanguageDriverConfig.TemplateCompilation.VERIFY) {
+      verify(parameterObject, sql, generatedParams);
+    }
+
+    // We got SQL ready for MyBatis here. This SQL contains
+    // params declarations like "#{param}",
+    // they will be replaced to '?' by MyBatis engine further
+
+    // Generated params are passed as additional parameters of BoundSql,
+    // so the parameter object (bean or Map) passed by caller is not modified
+    Map<String, Object> additionalParameters = toAdditionalParameters(generatedParams);
+
+    // Pass retrieved SQL into MyBatis engine, it will substitute prepared-statements parameters
+    String parsedSqlKey = parsedSqls == null ? null
+        : appendTypes(new StringBuilder(sql), parameterObject, generatedParams).toString();
+    SqlSource sqlSource = parsedSqlKey == null ? null : parsedSqls.get(parsedSqlKey);
+    if (sqlSource == null) {
+      SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+      Class<?> parameterType1 = parameterObject == null ? Object.class : parameterObject.getClass();
+      sqlSource = sqlSourceParser.parse(sql, parameterType1, additionalParameters);
+      if (parsedSqlKey != null) {
+        parsedSqls.put(parsedSqlKey, sqlSource);
+      }
+    }
+    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    additionalParameters.forEach(boundSql::setAdditionalParameter);
+    String shapeId = shapeIdEnabled ? toShapeId(boundSql.getSql()) : null;
+    if (shapeKey != null && shapes.size() < MAX_SHAPES) {
+      shapes.putIfAbsent(shapeKey, new Shape(sql, sqlSource, shapeId));
+    }
+    return withShapeId(boundSql, shapeId);
+  }
+
+  /**
+   * Find the id of statement that uses this SQL source (for reporting an error).
+   */
+  private String getStatementId() {
+    for (Object statement : configuration.getMappedStatements()) {
+      // The values may contain the markers of ambiguous short names
+      if (statement instanceof MappedStatement && (((MappedStatement) statement).getSqlSource() == this
+          || ((MappedStatement) statement).getSqlSource() == countSqlSource)) {
+        return ((MappedStatement) statement).getId();
+      }
+    }
+    return template.getName();
+  }
+
+  /**
+   * Compute the shape id of SQL. The shape id is the 64-bit FNV-1a hash of the SQL (as UTF-16 code units) in 16
+   * hexadecimal digits, so it is stable across processes and can be used as a compact key of the SQL (e.g. a part of
+   * cache key, or the name of server-side prepared statement). Note that the different SQLs may have the same id in
+   * rare cases.
+   *
+   * @param sql
+   *          the SQL
+   *
+   * @return the shape id
+   *
+   * @since 1.3.3
+   */
+  public static String toShapeId(String sql) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < sql.length(); i++) {
+      hash ^= sql.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    String hex = Long.toHexString(hash);
+    return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+  }
+
+  private static BoundSql withShapeId(BoundSql boundSql, String shapeId) {
+    if (shapeId != null) {
+      boundSql.setAdditionalParameter(SHAPE_ID_KEY, shapeId);
+    }
+    return boundSql;
+  }
+
+  private static Map<String, Object> toAdditionalParameters(List generatedParams) {
+    Map<String, Object> additionalParameters = new HashMap<>();
+    for (int i = 0; i < generatedParams.size(); i++) {
+      additionalParameters.put("_p" + i, generatedParams.get(i));
+    }
+    return additionalParameters;
+  }
+
+  private static BoundSql toBoundSql(SqlSource sqlSource, Object parameterObject, List generatedParams) {
+    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    toAdditionalParameters(generatedParams).forEach(boundSql::setAdditionalParameter);
+    return boundSql;
+  }
+
+  /**
+   * Walk the render plan for building the shape key. The key contains the types that are used for resolving the type
+   * handlers, because the parameter mappings are reused for the same key.
+   *
+   * @return the shape key, or {@code null} if the render plan cannot walk the parameter object
+   */
+  private String walk(Object parameterObject, List generatedParams) {
+    String shape;
+    try {
+      shape = renderPlan.walk(
+          template.createProcessingEnvironment(createDataContext(parameterObject, generatedParams), NullWriter.INSTANCE));
+    } catch (RenderPlan.UnsupportedConstructException | TemplateException | IOException e) {
+      return null;
+    }
+    return appendTypes(new StringBuilder(shape.length() + 64).append(shape), parameterObject, generatedParams)
+        .toString();
+  }
+
+  /**
+   * Append the types that are used for resolving the type handlers of parameter mappings.
+   */
+  private static StringBuilder appendTypes(StringBuilder key, Object parameterObject, List generatedParams) {
+    key.append('\0').append(parameterObject == null ? "" : parameterObject.getClass().getName());
+    for (Object value : generatedParams) {
+      key.append('\0').append(value == null ? "" : value.getClass().getName());
+    }
+    return key;
+  }
+
+  /**
+   * Render the template by the render plan (if it is compiled) or the interpreter.
+   *
+   * @return the rendered text
+   */
+  private String render(Object parameterObject, List generatedParams, RenderPlan plan, RenderLimits.Budget budget) {
+    Object dataContext = createDataContext(parameterObject, generatedParams);
+    SqlBuffer writer = new SqlBuffer(budget);
+    try {
+      TemplateLibraries libraries = TemplateLibraries.of(template.getConfiguration());
+      if (plan != null) {
+        plan.render(template.createProcessingEnvironment(dataContext, writer));
+      } else if (libraries == null) {
+        template.process(dataContext, writer);
+      } else {
+        Environment env = template.createProcessingEnvironment(dataContext, writer);
+        libraries.apply(env);
+        env.process();
+      }
+    } catch (TemplateException | IOException e) {
+      throw new RuntimeException(e);
+    }
+    return writer.toString();
+  }
+
+  private Object createDataContext(Object parameterObject, List generatedParams) {
     // Add to passed parameterObject our predefined directive - MyBatisParamDirective
     // It will be available as "p" inside templates
     Object dataContext;
-    List generatedParams = new ArrayList<>();
     if (parameterObject != null) {
       if (parameterObject instanceof Map) {
         Map<String, Object> map = new HashMap<>((Map<String, Object>) parameterObject);
@@ -91,35 +478,102 @@ public class FreeMarkerSqlSource implements SqlSource {
       map.put(GENERATED_PARAMS_KEY, generatedParams);
       dataContext = preProcessDataContext(map, true);
     }
+    if (specializedDatabaseId != null) {
+      checkSpecializedDatabaseId(dataContext);
+    }
 
-    CharArrayWriter writer = new CharArrayWriter();
+    if (!dataContextContributors.isEmpty()) {
+      dataContext = wrapContributingDataModel(dataContext, parameterObject);
+    }
+    return dataContext;
+  }
+
+  /**
+   * Check that the database id in the data context is the one that the template is specialized for (see
+   * {@link TemplateSpecializer}), because the pruned branches cannot be restored.
+   */
+  private void checkSpecializedDatabaseId(Object dataContext) {
+    Object value;
     try {
-      template.process(dataContext, writer);
-    } catch (TemplateException | IOException e) {
+      value = dataContext instanceof Map ? ((Map<?, ?>) dataContext).get(MyBatisParamDirective.DATABASE_ID_KEY)
+          : ((TemplateHashModel) dataContext).get(MyBatisParamDirective.DATABASE_ID_KEY);
+      if (value instanceof TemplateScalarModel) {
+        value = ((TemplateScalarModel) value).getAsString();
+      }
+    } catch (TemplateModelException e) {
       throw new RuntimeException(e);
     }
+    if (!specializedDatabaseId.equals(value)) {
+      throw new IllegalStateException(String.format(
+          "The template of statement '%s' is specialized for the database id '%s', but '%s' is shadowed by [%s].",
+          getStatementId(), specializedDatabaseId, MyBatisParamDirective.DATABASE_ID_KEY, value));
+    }
+  }
 
-    // We got SQL ready for MyBatis here. This SQL contains
-    // params declarations like "#{param}",
-    // they will be replaced to '?' by MyBatis engine further
-    String sql = writer.toString();
+  /**
+   * Verify the result of render plan with the interpreter. Note that the data context contributors are evaluated twice in
+   * this mode.
+   */
+  private void verify(Object parameterObject, String sql, List generatedParams) {
+    List expectedParams = new ArrayList<>();
+    String expectedSql = render(parameterObject, expectedParams, null, null);
+    if (!expectedSql.equals(sql) || !expectedParams.equals(generatedParams)) {
+      throw new IllegalStateException(String.format(
+          "The render plan differs from the template. template:[%s] sql:[%s] expected sql:[%s] params:%s"
+              + " expected params:%s",
+          template.getName(), sql, expectedSql, generatedParams, expectedParams));
+    }
+  }
 
-    if (!generatedParams.isEmpty()) {
-      if (!(parameterObject instanceof Map)) {
-        throw new UnsupportedOperationException("Auto-generated prepared statements parameters"
-            + " are not available if using parameters object. Use @Param-annotated parameters" + " instead.");
-      }
+  private Object wrapContributingDataModel(Object dataContext, Object parameterObject) {
+    ObjectWrapper objectWrapper = template.getObjectWrapper();
+    TemplateModel dataModel;
+    try {
+      dataModel = dataContext instanceof TemplateModel ? (TemplateModel) dataContext : objectWrapper.wrap(dataContext);
+    } catch (TemplateModelException e) {
+      throw new RuntimeException(e);
+    }
+    if (!(dataModel instanceof TemplateHashModel)) {
+      return dataContext;
+    }
+    return new ContributingDataModel((TemplateHashModel) dataModel, dataContextContributors, parameterObject,
+        objectWrapper);
+  }
 
-      Map<String, Object> parametersMap = (Map<String, Object>) parameterObject;
-      for (int i = 0; i < generatedParams.size(); i++) {
-        parametersMap.put("_p" + i, generatedParams.get(i));
+  /**
+   * Get the {@link SqlSource} that derives a COUNT query from this template. The instance is created at first call and
+   * cached per statement.
+   *
+   * @return the {@link CountSqlSource} for this template
+   *
+   * @since 1.3.3
+   */
+  public SqlSource getCountSqlSource() {
+    SqlSource result = countSqlSource;
+    if (result == null) {
+      synchronized (this) {
+        result = countSqlSource;
+        if (result == null) {
+          result = new CountSqlSource(this, configuration);
+          countSqlSource = result;
+        }
       }
     }
+    return result;
+  }
 
-    // Pass retrieved SQL into MyBatis engine, it will substitute prepared-statements parameters
-    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
-    Class<?> parameterType1 = parameterObject == null ? Object.class : parameterObject.getClass();
-    SqlSource sqlSource = sqlSourceParser.parse(sql, parameterType1, new HashMap<>());
-    return sqlSource.getBoundSql(parameterObject);
+  /**
+   * The rendered SQL, the parsed parameter mappings and the shape id (can be null) of a shape.
+   */
+  private static class Shape {
+    private final String sql;
+    private final SqlSource sqlSource;
+    private final String id;
+
+    Shape(String sql, SqlSource sqlSource, String id) {
+      this.sql = sql;
+      this.sqlSource = sqlSource;
+      this.id = id;
+    }
   }
 }
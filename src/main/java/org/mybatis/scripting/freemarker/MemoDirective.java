@@ -0,0 +1,110 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import freemarker.core.Environment;
+import freemarker.template.TemplateDirectiveBody;
+import freemarker.template.TemplateDirectiveModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateNumberModel;
+import freemarker.template.TemplateScalarModel;
+
+/**
+ * Custom FreeMarker directive that memoizes the rendered body within one processing. The body is rendered at the first
+ * call for each {@code key}, and the subsequent calls with the same key write the rendered text again without
+ * evaluating the body (e.g. expensive helper method calls or {@code ?map}/{@code ?join} pipelines):
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ *     SELECT &lt;@memo key="columns"&gt;${helper.columnsFor(type)}&lt;/@memo&gt; FROM names
+ *     UNION ALL
+ *     SELECT &lt;@memo key="columns"/&gt; FROM old_names
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * The memoized text is discarded when the processing is finished, so it is never shared between statements or
+ * parameters. The generated parameters (e.g. {@code <@p value=.../>}) in the body are bound only once, and the
+ * memoized text refers to the same parameters. Note that the side effects of the body other than the output (e.g.
+ * {@code <#assign>}) are not replayed.
+ * </p>
+ *
+ * @since 1.3.3
+ */
+public class MemoDirective implements TemplateDirectiveModel {
+  public static final String DEFAULT_KEY = "memo";
+
+  private static final Object MEMO_KEY = new Object();
+
+  @Override
+  public void execute(Environment env, Map params, TemplateModel[] loopVars, TemplateDirectiveBody body)
+      throws TemplateException, IOException {
+    String key = getKey(params);
+    Map<String, String> memo = getMemo(env);
+    String text = memo.get(key);
+    if (text == null) {
+      if (body == null) {
+        throw new TemplateModelException(
+            String.format("The body is required at the first call for the key. key:[%s]", key));
+      }
+      StringWriter buffer = new StringWriter();
+      body.render(buffer);
+      text = buffer.toString();
+      memo.put(key, text);
+    } else {
+      // The replayed text binds the parameters again
+      RenderLimits.countBinds(MyBatisParamDirective.getGeneratedParams(env), countBinds(text));
+    }
+    env.getOut().write(text);
+  }
+
+  private static int countBinds(String text) {
+    int count = 0;
+    for (int i = text.indexOf("#{"); i != -1; i = text.indexOf("#{", i + 2)) {
+      count++;
+    }
+    return count;
+  }
+
+  private static Map<String, String> getMemo(Environment env) {
+    @SuppressWarnings("unchecked")
+    Map<String, String> memo = (Map<String, String>) env.getCustomState(MEMO_KEY);
+    if (memo == null) {
+      memo = new HashMap<>();
+      env.setCustomState(MEMO_KEY, memo);
+    }
+    return memo;
+  }
+
+  private static String getKey(Map params) throws TemplateModelException {
+    Object value = params.get("key");
+    if (value instanceof TemplateScalarModel) {
+      return ((TemplateScalarModel) value).getAsString();
+    } else if (value instanceof TemplateNumberModel) {
+      return ((TemplateNumberModel) value).getAsNumber().toString();
+    }
+    throw new TemplateModelException("The 'key' attribute is required as string.");
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2015-2023 the original author or authors.
+ *    Copyright 2015-2026 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -16,21 +16,49 @@
 package org.mybatis.scripting.freemarker;
 
 import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeAliasRegistry;
+import org.apache.ibatis.type.TypeException;
 
 import freemarker.core.Environment;
 import freemarker.ext.util.WrapperTemplateModel;
 import freemarker.template.DefaultListAdapter;
 import freemarker.template.SimpleScalar;
 import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateCollectionModel;
 import freemarker.template.TemplateDateModel;
 import freemarker.template.TemplateDirectiveBody;
 import freemarker.template.TemplateDirectiveModel;
 import freemarker.template.TemplateException;
 import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateModelIterator;
 import freemarker.template.TemplateNumberModel;
 import freemarker.template.TemplateScalarModel;
+import freemarker.template.utility.DeepUnwrap;
 
 /**
  * Custom FreeMarker directive for generating "#{paramName}" declarations in convenient way. Problem is FreeMarker
@@ -71,6 +99,43 @@ import freemarker.template.TemplateScalarModel;
  * <p>
  * And MyBatis engine will convert it to `?`-params finally.
  * </p>
+ * <p>
+ * If `inline=true` is specified with `value` attribute, the value is written as SQL literal instead of parameter. It is
+ * useful for low-cardinality values that optimizer should know (e.g. partial indexes). Only enum, boolean, integral
+ * number and BigDecimal are allowed, and other types (such as String) are rejected:
+ * </p>
+ * <blockquote>
+ *
+ * <pre>
+ *     status = &lt;@p value=status inline=true/&gt;
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * The `values` attribute binds all elements of a sequence (or an array) at once. The sequence is added as one generated
+ * parameter and its elements are referred by index, so the elements of {@code int[]}/{@code long[]} are not boxed until
+ * JDBC binding:
+ * </p>
+ * <blockquote>
+ *
+ * <pre>
+ *     id in (&lt;@p values=ids/&gt;)  (translated into "id in (#{_p0[0]}, #{_p0[1]}, #{_p0[2]})")
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * The type of generated parameter is declared as {@code javaType} so that MyBatis resolves the {@code TypeHandler} at
+ * parsing time. Because a {@code null} value has no type, the `javaType` and/or `jdbcType` attributes can be specified
+ * for it. When only `javaType` is specified, the `jdbcType` is inferred from it:
+ * </p>
+ * <blockquote>
+ *
+ * <pre>
+ *     &lt;@p value=birthDate javaType="java.time.LocalDate"/&gt;
+ *     (translated into #{_p0,javaType=java.time.LocalDate,jdbcType=DATE})
+ * </pre>
+ *
+ * </blockquote>
  *
  * @author elwood
  */
@@ -78,12 +143,86 @@ public class MyBatisParamDirective implements TemplateDirectiveModel {
   public static String DEFAULT_KEY = "p";
   public static String DATABASE_ID_KEY = "_databaseId";
 
+  /**
+   * The database ids that do not support boolean literals.
+   */
+  private static final Set<String> NUMERIC_BOOLEAN_DATABASE_IDS = Collections
+      .unmodifiableSet(new HashSet<>(Arrays.asList("oracle", "sqlserver")));
+
+  /**
+   * The well-known java types and corresponding jdbc types for binding {@code null}.
+   */
+  private static final Map<Class<?>, JdbcType> JDBC_TYPES;
+
+  static {
+    Map<Class<?>, JdbcType> jdbcTypes = new HashMap<>();
+    jdbcTypes.put(String.class, JdbcType.VARCHAR);
+    jdbcTypes.put(Boolean.class, JdbcType.BOOLEAN);
+    jdbcTypes.put(Byte.class, JdbcType.TINYINT);
+    jdbcTypes.put(Short.class, JdbcType.SMALLINT);
+    jdbcTypes.put(Integer.class, JdbcType.INTEGER);
+    jdbcTypes.put(Long.class, JdbcType.BIGINT);
+    jdbcTypes.put(Float.class, JdbcType.FLOAT);
+    jdbcTypes.put(Double.class, JdbcType.DOUBLE);
+    jdbcTypes.put(BigInteger.class, JdbcType.BIGINT);
+    jdbcTypes.put(BigDecimal.class, JdbcType.DECIMAL);
+    jdbcTypes.put(byte[].class, JdbcType.VARBINARY);
+    jdbcTypes.put(java.util.Date.class, JdbcType.TIMESTAMP);
+    jdbcTypes.put(java.sql.Date.class, JdbcType.DATE);
+    jdbcTypes.put(java.sql.Time.class, JdbcType.TIME);
+    jdbcTypes.put(java.sql.Timestamp.class, JdbcType.TIMESTAMP);
+    jdbcTypes.put(Instant.class, JdbcType.TIMESTAMP);
+    jdbcTypes.put(LocalDate.class, JdbcType.DATE);
+    jdbcTypes.put(LocalTime.class, JdbcType.TIME);
+    jdbcTypes.put(LocalDateTime.class, JdbcType.TIMESTAMP);
+    jdbcTypes.put(OffsetTime.class, JdbcType.TIME_WITH_TIMEZONE);
+    jdbcTypes.put(OffsetDateTime.class, JdbcType.TIMESTAMP_WITH_TIMEZONE);
+    jdbcTypes.put(ZonedDateTime.class, JdbcType.TIMESTAMP_WITH_TIMEZONE);
+    JDBC_TYPES = Collections.unmodifiableMap(jdbcTypes);
+  }
+
+  /**
+   * The registry for resolving built-in type aliases (e.g. {@code string}, {@code date}) of `javaType` attribute.
+   */
+  private static final TypeAliasRegistry TYPE_ALIAS_REGISTRY = new TypeAliasRegistry();
+
+  private static final Map<Class<?>, Class<?>> PRIMITIVE_WRAPPERS;
+
+  static {
+    Map<Class<?>, Class<?>> wrappers = new HashMap<>();
+    wrappers.put(boolean.class, Boolean.class);
+    wrappers.put(byte.class, Byte.class);
+    wrappers.put(short.class, Short.class);
+    wrappers.put(int.class, Integer.class);
+    wrappers.put(long.class, Long.class);
+    wrappers.put(float.class, Float.class);
+    wrappers.put(double.class, Double.class);
+    PRIMITIVE_WRAPPERS = Collections.unmodifiableMap(wrappers);
+  }
+
+  private static final Object ARRAY_PARAM_NAMES_KEY = new Object();
+
+  private static final Pattern TYPE_NAME_PATTERN = Pattern.compile("[\\w.$\\[\\]]+");
+
   @Override
   public void execute(Environment env, Map params, TemplateModel[] loopVars, TemplateDirectiveBody body)
       throws TemplateException, IOException {
     SimpleScalar name = (SimpleScalar) params.get("name");
-    if (params.containsKey("value")) {
+    if (params.containsKey("values")) {
+      if (isInline(params)) {
+        throw new TemplateModelException("The 'inline' attribute can be used with the 'value' attribute only.");
+      }
+      writeValues(env, params.get("values"), getTypeName(params, "javaType"), getTypeName(params, "jdbcType"));
+    } else if (params.containsKey("value")) {
       Object valueObject = params.get("value");
+      if (valueObject instanceof PrimitiveArrayModel.ElementModel && !isInline(params)) {
+        // Refers the element of array that bound once, for keeping the value unboxed until JDBC binding
+        PrimitiveArrayModel.ElementModel element = (PrimitiveArrayModel.ElementModel) valueObject;
+        String arrayParamName = addGeneratedArrayParam(env, element.getArray());
+        env.getOut().write(toParamExpression(arrayParamName + "[" + element.getIndex() + "]", null,
+            getElementTypeName(element.getArray(), getTypeName(params, "javaType")), getTypeName(params, "jdbcType")));
+        return;
+      }
       Object value;
       if (valueObject == null) {
         value = null;
@@ -102,18 +241,268 @@ public class MyBatisParamDirective implements TemplateDirectiveModel {
             String.format("Type %s is not supported yet in this context.", valueObject.getClass().getSimpleName()));
       }
 
-      TemplateModel generatedParamsObject = env.getGlobalVariables().get(FreeMarkerSqlSource.GENERATED_PARAMS_KEY);
-      List generatedParams;
-      if (generatedParamsObject instanceof DefaultListAdapter) {
-        generatedParams = (List) ((DefaultListAdapter) generatedParamsObject).getWrappedObject();
+      if (isInline(params)) {
+        env.getOut().write(toInlineLiteral(value, getDatabaseId(env)));
       } else {
-        generatedParams = ((GeneratedParamsTemplateModel) generatedParamsObject).getGeneratedParams();
+        env.getOut().write(toParamExpression(addGeneratedParam(env, value), value, getTypeName(params, "javaType"),
+            getTypeName(params, "jdbcType")));
       }
-      String generatedParamName = "_p" + generatedParams.size();
-      env.getOut().write(String.format("#{%s}", generatedParamName));
-      generatedParams.add(value);
     } else {
+      if (isInline(params)) {
+        throw new TemplateModelException("The 'inline' attribute can be used with the 'value' attribute only.");
+      }
       env.getOut().write(String.format("#{%s}", name));
     }
   }
+
+  /**
+   * Builds the #{}-parameter expression of generated parameter. The {@code javaType} is declared from the value (or
+   * specified one), and the {@code jdbcType} is declared when it is specified or the value is {@code null}.
+   *
+   * @param name
+   *          the name of generated parameter
+   * @param value
+   *          a value of parameter
+   * @param javaType
+   *          the specified java type (can be null)
+   * @param jdbcType
+   *          the specified jdbc type (can be null)
+   *
+   * @return #{}-parameter expression
+   */
+  static String toParamExpression(String name, Object value, String javaType, String jdbcType)
+      throws TemplateModelException {
+    Class<?> javaTypeClass = null;
+    if (javaType == null && value != null) {
+      Class<?> valueType = value instanceof Enum ? ((Enum<?>) value).getDeclaringClass() : value.getClass();
+      if (valueType.isEnum() || JDBC_TYPES.containsKey(valueType)) {
+        javaTypeClass = valueType;
+        javaType = valueType.getName();
+      }
+    }
+    if (jdbcType != null) {
+      try {
+        JdbcType.valueOf(jdbcType);
+      } catch (IllegalArgumentException e) {
+        throw new TemplateModelException(String.format("The 'jdbcType' is invalid. jdbcType:[%s]", jdbcType), e);
+      }
+    } else if (value == null && javaType != null) {
+      JdbcType inferred = inferJdbcType(javaTypeClass != null ? javaTypeClass : resolveJavaType(javaType));
+      jdbcType = inferred == null ? null : inferred.name();
+    }
+
+    StringBuilder expression = new StringBuilder(name.length() + 64).append("#{").append(name);
+    if (javaType != null) {
+      expression.append(",javaType=").append(javaType);
+    }
+    if (jdbcType != null) {
+      expression.append(",jdbcType=").append(jdbcType);
+    }
+    return expression.append('}').toString();
+  }
+
+  private static Class<?> resolveJavaType(String javaType) {
+    try {
+      return TYPE_ALIAS_REGISTRY.resolveAlias(javaType);
+    } catch (TypeException e) {
+      // The custom alias is resolved by MyBatis
+      return null;
+    }
+  }
+
+  private static JdbcType inferJdbcType(Class<?> javaType) {
+    if (javaType == null) {
+      return null;
+    }
+    if (javaType.isEnum()) {
+      return JdbcType.VARCHAR;
+    }
+    return JDBC_TYPES.get(javaType.isPrimitive() ? PRIMITIVE_WRAPPERS.get(javaType) : javaType);
+  }
+
+  private static String getTypeName(Map params, String name) throws TemplateModelException {
+    Object value = params.get(name);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof TemplateScalarModel)) {
+      throw new TemplateModelException(String.format("The '%s' attribute should be a string.", name));
+    }
+    String typeName = ((TemplateScalarModel) value).getAsString().trim();
+    if (!TYPE_NAME_PATTERN.matcher(typeName).matches()) {
+      throw new TemplateModelException(String.format("The '%s' attribute is invalid. %s:[%s]", name, name, typeName));
+    }
+    return typeName;
+  }
+
+  private static void writeValues(Environment env, Object valuesObject, String javaType, String jdbcType)
+      throws TemplateModelException, IOException {
+    Object values = valuesObject instanceof TemplateModel ? DeepUnwrap.unwrap((TemplateModel) valuesObject) : null;
+    int size;
+    if (values instanceof List) {
+      size = ((List<?>) values).size();
+    } else if (values instanceof Collection) {
+      values = new ArrayList<>((Collection<?>) values);
+      size = ((List<?>) values).size();
+    } else if (valuesObject instanceof TemplateCollectionModel && SinglePassCollectionModel.isSupported(values)) {
+      // The elements should be held until binding
+      List<Object> list = new ArrayList<>();
+      TemplateModelIterator iterator = ((TemplateCollectionModel) valuesObject).iterator();
+      while (iterator.hasNext()) {
+        list.add(DeepUnwrap.unwrap(iterator.next()));
+      }
+      values = list;
+      size = list.size();
+    } else if (values != null && values.getClass().isArray()) {
+      size = Array.getLength(values);
+    } else {
+      throw new TemplateModelException("The 'values' attribute should be a sequence or an array.");
+    }
+    String arrayParamName = addGeneratedArrayParam(env, values);
+    String elementJavaType = getElementTypeName(values, javaType);
+    Writer out = env.getOut();
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        out.write(", ");
+      }
+      out.write(toParamExpression(arrayParamName + "[" + i + "]", null, elementJavaType, jdbcType));
+    }
+  }
+
+  /**
+   * Gets the java type of the elements that are bound as {@code _pN[index]}. The element of a primitive array is
+   * declared as its wrapper type (e.g. {@code int} as {@link Integer}), because the value is not passed to
+   * {@link #toParamExpression}.
+   */
+  private static String getElementTypeName(Object array, String javaType) {
+    if (javaType != null || !array.getClass().isArray()) {
+      return javaType;
+    }
+    Class<?> wrapper = PRIMITIVE_WRAPPERS.get(array.getClass().getComponentType());
+    return wrapper == null ? null : wrapper.getName();
+  }
+
+  private static boolean isInline(Map params) throws TemplateModelException {
+    Object inline = params.get("inline");
+    if (inline == null) {
+      return false;
+    }
+    if (!(inline instanceof TemplateBooleanModel)) {
+      throw new TemplateModelException("The 'inline' attribute should be a boolean.");
+    }
+    return ((TemplateBooleanModel) inline).getAsBoolean();
+  }
+
+  /**
+   * Converts the value to SQL literal. Supported types are {@code null}, {@link Enum} (inlined as string literal of
+   * name), {@link Boolean}, integral numbers and {@link BigDecimal}. Other types (such as {@link String}) are rejected
+   * for preventing SQL injection.
+   *
+   * @param value
+   *          a value to inline
+   * @param databaseId
+   *          the current database id
+   *
+   * @return SQL literal
+   */
+  static String toInlineLiteral(Object value, String databaseId) throws TemplateModelException {
+    if (value == null) {
+      return "NULL";
+    } else if (value instanceof Enum) {
+      return "'" + ((Enum<?>) value).name().replace("'", "''") + "'";
+    } else if (value instanceof Boolean) {
+      boolean booleanValue = (Boolean) value;
+      if (NUMERIC_BOOLEAN_DATABASE_IDS.contains(databaseId)) {
+        return booleanValue ? "1" : "0";
+      }
+      return booleanValue ? "TRUE" : "FALSE";
+    } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+        || value instanceof BigInteger) {
+      return value.toString();
+    } else if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).toPlainString();
+    }
+    throw new TemplateModelException(
+        String.format("Type %s is not allowed to inline. Allowed types are enum, boolean, integral number and"
+            + " BigDecimal.", value.getClass().getName()));
+  }
+
+  /**
+   * Gets the database id of current processing.
+   *
+   * @param env
+   *          the current processing environment
+   *
+   * @return the database id (can be null)
+   */
+  static String getDatabaseId(Environment env) throws TemplateModelException {
+    TemplateModel databaseId = env.getGlobalVariables().get(DATABASE_ID_KEY);
+    if (databaseId instanceof TemplateScalarModel) {
+      String value = ((TemplateScalarModel) databaseId).getAsString();
+      return value.isEmpty() ? null : value;
+    }
+    return null;
+  }
+
+  /**
+   * Adds the array (or list) into the generated params of current processing. The same instance is added only once per
+   * processing, and its elements can be referred as {@code _pN[index]}.
+   *
+   * @param env
+   *          the current processing environment
+   * @param array
+   *          an array or list
+   *
+   * @return the name of generated parameter
+   */
+  static String addGeneratedArrayParam(Environment env, Object array) throws TemplateModelException {
+    Map<Object, String> arrayParamNames = (Map<Object, String>) env.getCustomState(ARRAY_PARAM_NAMES_KEY);
+    if (arrayParamNames == null) {
+      arrayParamNames = new IdentityHashMap<>();
+      env.setCustomState(ARRAY_PARAM_NAMES_KEY, arrayParamNames);
+    }
+    String name = arrayParamNames.get(array);
+    if (name == null) {
+      List generatedParams = getGeneratedParams(env);
+      name = "_p" + generatedParams.size();
+      // The elements are bound one by one
+      RenderLimits.addGeneratedParam(generatedParams, array,
+          array instanceof List ? ((List<?>) array).size() : Array.getLength(array));
+      arrayParamNames.put(array, name);
+    }
+    return name;
+  }
+
+  /**
+   * Adds the value into the generated params of current processing.
+   *
+   * @param env
+   *          the current processing environment
+   * @param value
+   *          a value of parameter
+   *
+   * @return the name of generated parameter
+   */
+  static String addGeneratedParam(Environment env, Object value) throws TemplateModelException {
+    List generatedParams = getGeneratedParams(env);
+    String generatedParamName = "_p" + generatedParams.size();
+    generatedParams.add(value);
+    return generatedParamName;
+  }
+
+  /**
+   * Gets the generated params of current processing. The index of a value is the suffix of its name (e.g. {@code _p0}).
+   *
+   * @param env
+   *          the current processing environment
+   *
+   * @return the generated params
+   */
+  static List getGeneratedParams(Environment env) throws TemplateModelException {
+    TemplateModel generatedParamsObject = env.getGlobalVariables().get(FreeMarkerSqlSource.GENERATED_PARAMS_KEY);
+    if (generatedParamsObject instanceof DefaultListAdapter) {
+      return (List) ((DefaultListAdapter) generatedParamsObject).getWrappedObject();
+    }
+    return ((GeneratedParamsTemplateModel) generatedParamsObject).getGeneratedParams();
+  }
 }
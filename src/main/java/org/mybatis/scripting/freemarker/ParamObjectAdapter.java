@@ -1,5 +1,5 @@
 /*
- *    Copyright 2015-2025 the original author or authors.
+ *    Copyright 2015-2026 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -17,8 +17,11 @@ package org.mybatis.scripting.freemarker;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import freemarker.ext.beans.BeanModel;
+import freemarker.ext.beans.BeansWrapper;
 import freemarker.ext.beans.BeansWrapperBuilder;
 import freemarker.template.TemplateHashModel;
 import freemarker.template.TemplateModel;
@@ -28,16 +31,33 @@ import freemarker.template.Version;
 /**
  * Important: if you are using some object that already has property "p", then MyBatisParamDirective will be unavailable
  * from script.
+ * <p>
+ * The properties that have public getters are read via the accessor table that built once per class, and the
+ * {@link BeanModel} is created lazily for other cases (e.g. method calls). A record parameter is read via its component
+ * accessors as same, and a record property is wrapped with {@link RecordModel}. An iterator, stream or cursor property
+ * is wrapped with {@link SinglePassCollectionModel}, and an {@code int[]}/{@code long[]} property is wrapped with
+ * {@link PrimitiveArrayModel}. The other properties are wrapped with {@link BeansWrapper}, so their methods can be
+ * called from templates (e.g. {@code name.length()}). The {@code _databaseId} additional parameter is reserved, so it
+ * takes precedence over a bean property that has the same name.
+ * </p>
  *
  * @author elwood
  */
 public class ParamObjectAdapter implements TemplateHashModel {
-  private final BeanModel beanModel;
+  private static final Map<Version, BeansWrapper> BEANS_WRAPPERS = new ConcurrentHashMap<>();
+
+  private final Object paramObject;
+  private final PropertyAccessors accessors;
+  private final BeansWrapper beansWrapper;
   private final List generatedParams;
+  private BeanModel beanModel;
   private HashMap<String, TemplateModel> additionalParams;
 
   public ParamObjectAdapter(Object paramObject, List generatedParams, Version incompatibleImprovementsVersion) {
-    beanModel = new BeanModel(paramObject, new BeansWrapperBuilder(incompatibleImprovementsVersion).build());
+    this.paramObject = paramObject;
+    this.accessors = PropertyAccessors.forClass(paramObject.getClass());
+    this.beansWrapper = BEANS_WRAPPERS.computeIfAbsent(incompatibleImprovementsVersion,
+        version -> new BeansWrapperBuilder(version).build());
     this.generatedParams = generatedParams;
   }
 
@@ -58,8 +78,29 @@ public class ParamObjectAdapter implements TemplateHashModel {
 
   @Override
   public TemplateModel get(String key) throws TemplateModelException {
+    // The database id is reserved, so a bean property never shadows it (same as a map parameter)
+    if (MyBatisParamDirective.DATABASE_ID_KEY.equals(key) && additionalParams != null
+        && additionalParams.containsKey(key)) {
+      return additionalParams.get(key);
+    }
+
     // Trying to get bean property
-    TemplateModel value = beanModel.get(key);
+    TemplateModel value;
+    if (accessors.hasGetter(key)) {
+      Object propertyValue = accessors.getValue(paramObject, key);
+      if (RecordModel.isSupported(propertyValue)) {
+        value = new RecordModel(propertyValue, beansWrapper);
+      } else if (propertyValue instanceof int[] || propertyValue instanceof long[]) {
+        // The elements are kept unboxed as the values of a map parameter
+        value = PrimitiveArrayModel.of(propertyValue);
+      } else if (SinglePassCollectionModel.isSupported(propertyValue)) {
+        value = SinglePassCollectionModel.of(propertyValue, beansWrapper);
+      } else {
+        value = beansWrapper.wrap(propertyValue);
+      }
+    } else {
+      value = getBeanModel().get(key);
+    }
 
     // If no value retrieved, trying to find the key in additional params
     if (value == null && additionalParams != null && additionalParams.containsKey(key)) {
@@ -76,6 +117,13 @@ public class ParamObjectAdapter implements TemplateHashModel {
 
   @Override
   public boolean isEmpty() throws TemplateModelException {
-    return beanModel.isEmpty();
+    return getBeanModel().isEmpty();
+  }
+
+  private BeanModel getBeanModel() {
+    if (beanModel == null) {
+      beanModel = new BeanModel(paramObject, beansWrapper);
+    }
+    return beanModel;
   }
 }
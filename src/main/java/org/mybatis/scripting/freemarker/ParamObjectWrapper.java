@@ -0,0 +1,67 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.Version;
+
+/**
+ * The {@link DefaultObjectWrapper} that wraps parameter objects with specialised models. A Java record is wrapped with
+ * {@link RecordModel}, {@code int[]}/{@code long[]} are wrapped with {@link PrimitiveArrayModel} and
+ * {@link java.util.Iterator}/{@link java.util.stream.Stream}/MyBatis {@code Cursor} are wrapped with
+ * {@link SinglePassCollectionModel}. Other objects are wrapped as same as {@link DefaultObjectWrapper}.
+ * <p>
+ * It is used as object wrapper of {@link FreeMarkerLanguageDriver} when
+ * {@link FreeMarkerLanguageDriverConfig#isParamObjectWrapperEnabled()} is {@code true} and the {@code object_wrapper}
+ * setting of FreeMarker is not specified.
+ * </p>
+ *
+ * @since 1.3.3
+ */
+public class ParamObjectWrapper extends DefaultObjectWrapper {
+
+  /**
+   * Constructor.
+   *
+   * @param incompatibleImprovements
+   *          the incompatible improvements version of FreeMarker
+   */
+  public ParamObjectWrapper(Version incompatibleImprovements) {
+    super(incompatibleImprovements);
+  }
+
+  @Override
+  public TemplateModel wrap(Object obj) throws TemplateModelException {
+    if (obj instanceof int[] || obj instanceof long[]) {
+      return PrimitiveArrayModel.of(obj);
+    }
+    if (SinglePassCollectionModel.isSupported(obj)) {
+      return SinglePassCollectionModel.of(obj, this);
+    }
+    return super.wrap(obj);
+  }
+
+  @Override
+  protected TemplateModel handleUnknownType(Object obj) throws TemplateModelException {
+    if (RecordModel.isSupported(obj)) {
+      return new RecordModel(obj, this);
+    }
+    return super.handleUnknownType(obj);
+  }
+
+}
@@ -0,0 +1,155 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import freemarker.ext.util.WrapperTemplateModel;
+import freemarker.template.AdapterTemplateModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateNumberModel;
+import freemarker.template.TemplateSequenceModel;
+
+/**
+ * The {@link TemplateSequenceModel} for {@code int[]} and {@code long[]}. The elements are not boxed when they are
+ * listed, and an element passed to {@code <@p value=.../>} is bound as an indexed reference to the array (e.g.
+ * {@code #{_p0[3]}}), so the values are kept unboxed until JDBC binding.
+ *
+ * @see MyBatisParamDirective
+ *
+ * @since 1.3.3
+ */
+public abstract class PrimitiveArrayModel implements TemplateSequenceModel, AdapterTemplateModel, WrapperTemplateModel {
+
+  /**
+   * Create a model for the primitive array.
+   *
+   * @param array
+   *          a target object
+   *
+   * @return a model, or {@code null} if the object is not {@code int[]} or {@code long[]}
+   */
+  public static PrimitiveArrayModel of(Object array) {
+    if (array instanceof int[]) {
+      return new IntArrayModel((int[]) array);
+    } else if (array instanceof long[]) {
+      return new LongArrayModel((long[]) array);
+    }
+    return null;
+  }
+
+  /**
+   * Get the element as boxed number. It is called only when the value is needed in the template (e.g. {@code ${id}}).
+   *
+   * @param index
+   *          an index of element
+   *
+   * @return the boxed element
+   */
+  abstract Number getNumber(int index);
+
+  @Override
+  public TemplateModel get(int index) throws TemplateModelException {
+    return index < 0 || index >= size() ? null : new ElementModel(this, index);
+  }
+
+  @Override
+  public Object getAdaptedObject(Class<?> hint) {
+    return getWrappedObject();
+  }
+
+  /**
+   * The model of an element that refers the array and index instead of boxed value.
+   */
+  public static final class ElementModel implements TemplateNumberModel {
+    private final PrimitiveArrayModel arrayModel;
+    private final int index;
+
+    ElementModel(PrimitiveArrayModel arrayModel, int index) {
+      this.arrayModel = arrayModel;
+      this.index = index;
+    }
+
+    /**
+     * Get the array that holds this element.
+     *
+     * @return the primitive array
+     */
+    public Object getArray() {
+      return arrayModel.getWrappedObject();
+    }
+
+    /**
+     * Get the index of this element.
+     *
+     * @return the index
+     */
+    public int getIndex() {
+      return index;
+    }
+
+    @Override
+    public Number getAsNumber() {
+      return arrayModel.getNumber(index);
+    }
+  }
+
+  private static final class IntArrayModel extends PrimitiveArrayModel {
+    private final int[] array;
+
+    IntArrayModel(int[] array) {
+      this.array = array;
+    }
+
+    @Override
+    Number getNumber(int index) {
+      return array[index];
+    }
+
+    @Override
+    public int size() {
+      return array.length;
+    }
+
+    @Override
+    public Object getWrappedObject() {
+      return array;
+    }
+  }
+
+  private static final class LongArrayModel extends PrimitiveArrayModel {
+    private final long[] array;
+
+    LongArrayModel(long[] array) {
+      this.array = array;
+    }
+
+    @Override
+    Number getNumber(int index) {
+      return array[index];
+    }
+
+    @Override
+    public int size() {
+      return array.length;
+    }
+
+    @Override
+    public Object getWrappedObject() {
+      return array;
+    }
+  }
+
+}
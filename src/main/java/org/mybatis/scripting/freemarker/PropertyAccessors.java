@@ -0,0 +1,215 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The table of property accessors for a class. It is built once per class with {@link MethodHandle}s of public
+ * getters, so reading a property of parameter object is close to a direct getter call instead of the reflective
+ * lookups of {@link freemarker.ext.beans.BeanModel}.
+ * <p>
+ * Only the getters declared by public classes outside of the JDK are registered. Other properties (and methods) are
+ * resolved via {@link freemarker.ext.beans.BeanModel} as before. For a record class, the component accessors are
+ * registered by the component names (records are detected reflectively because this library supports Java 11).
+ * </p>
+ *
+ * @since 1.3.3
+ */
+final class PropertyAccessors {
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private static final Method IS_RECORD_METHOD;
+  private static final Method GET_RECORD_COMPONENTS_METHOD;
+  private static final Method GET_COMPONENT_NAME_METHOD;
+  private static final Method GET_COMPONENT_ACCESSOR_METHOD;
+
+  static {
+    Method isRecord = null;
+    Method getRecordComponents = null;
+    Method getName = null;
+    Method getAccessor = null;
+    try {
+      isRecord = Class.class.getMethod("isRecord");
+      getRecordComponents = Class.class.getMethod("getRecordComponents");
+      Class<?> recordComponentClass = Class.forName("java.lang.reflect.RecordComponent");
+      getName = recordComponentClass.getMethod("getName");
+      getAccessor = recordComponentClass.getMethod("getAccessor");
+    } catch (ReflectiveOperationException e) {
+      // Records are not supported on running JVM
+      isRecord = null;
+    }
+    IS_RECORD_METHOD = isRecord;
+    GET_RECORD_COMPONENTS_METHOD = getRecordComponents;
+    GET_COMPONENT_NAME_METHOD = getName;
+    GET_COMPONENT_ACCESSOR_METHOD = getAccessor;
+  }
+
+  private static final ClassValue<PropertyAccessors> CACHE = new ClassValue<PropertyAccessors>() {
+    @Override
+    protected PropertyAccessors computeValue(Class<?> type) {
+      boolean record = isRecordClass(type);
+      return new PropertyAccessors(record, record ? createRecordGetters(type) : createGetters(type));
+    }
+  };
+
+  private final boolean record;
+  private final Map<String, MethodHandle> getters;
+
+  private PropertyAccessors(boolean record, Map<String, MethodHandle> getters) {
+    this.record = record;
+    this.getters = getters;
+  }
+
+  /**
+   * Get the accessors of specified class.
+   *
+   * @param type
+   *          a class of parameter object
+   *
+   * @return the accessors (cached per class)
+   */
+  static PropertyAccessors forClass(Class<?> type) {
+    return CACHE.get(type);
+  }
+
+  /**
+   * Return whether the class is a record.
+   *
+   * @return {@code true} if it is a record class
+   */
+  boolean isRecord() {
+    return record;
+  }
+
+  /**
+   * Get the names of readable properties. For a record, they are the component names in declaration order.
+   *
+   * @return the property names
+   */
+  Set<String> getPropertyNames() {
+    return getters.keySet();
+  }
+
+  /**
+   * Return whether the property can be read via this accessors.
+   *
+   * @param name
+   *          a property name
+   *
+   * @return {@code true} if it has a getter
+   */
+  boolean hasGetter(String name) {
+    return getters.containsKey(name);
+  }
+
+  /**
+   * Read the property value.
+   *
+   * @param object
+   *          a target object
+   * @param name
+   *          a property name (should be checked by {@link #hasGetter(String)})
+   *
+   * @return the property value
+   */
+  Object getValue(Object object, String name) {
+    try {
+      return (Object) getters.get(name).invokeExact(object);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException(
+          "Could not get the property '" + name + "' of '" + object.getClass().getName() + "'.", e);
+    }
+  }
+
+  private static Map<String, MethodHandle> createGetters(Class<?> type) {
+    if (!Modifier.isPublic(type.getModifiers()) || isJdkClass(type)) {
+      return Collections.emptyMap();
+    }
+    BeanInfo beanInfo;
+    try {
+      beanInfo = Introspector.getBeanInfo(type);
+    } catch (IntrospectionException e) {
+      return Collections.emptyMap();
+    }
+    Map<String, MethodHandle> getters = new LinkedHashMap<>();
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+      Method readMethod = descriptor.getReadMethod();
+      if (readMethod == null || !Modifier.isPublic(readMethod.getDeclaringClass().getModifiers())
+          || isJdkClass(readMethod.getDeclaringClass())) {
+        continue;
+      }
+      try {
+        getters.put(descriptor.getName(), lookup.unreflect(readMethod).asType(GETTER_TYPE));
+      } catch (IllegalAccessException e) {
+        // Resolved via BeanModel
+      }
+    }
+    return getters.isEmpty() ? Collections.emptyMap() : getters;
+  }
+
+  private static Map<String, MethodHandle> createRecordGetters(Class<?> type) {
+    if (!Modifier.isPublic(type.getModifiers())) {
+      return Collections.emptyMap();
+    }
+    Map<String, MethodHandle> getters = new LinkedHashMap<>();
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    try {
+      for (Object component : (Object[]) GET_RECORD_COMPONENTS_METHOD.invoke(type)) {
+        String name = (String) GET_COMPONENT_NAME_METHOD.invoke(component);
+        Method accessor = (Method) GET_COMPONENT_ACCESSOR_METHOD.invoke(component);
+        getters.put(name, lookup.unreflect(accessor).asType(GETTER_TYPE));
+      }
+    } catch (ReflectiveOperationException e) {
+      // Resolved via BeanModel
+      return Collections.emptyMap();
+    }
+    return getters;
+  }
+
+  private static boolean isRecordClass(Class<?> type) {
+    if (IS_RECORD_METHOD == null) {
+      return false;
+    }
+    try {
+      return (Boolean) IS_RECORD_METHOD.invoke(type);
+    } catch (ReflectiveOperationException e) {
+      return false;
+    }
+  }
+
+  private static boolean isJdkClass(Class<?> type) {
+    String name = type.getName();
+    return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+        || name.startsWith("sun.") || name.startsWith("com.sun.");
+  }
+
+}
@@ -0,0 +1,119 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import freemarker.ext.beans.BeanModel;
+import freemarker.ext.beans.BeansWrapper;
+import freemarker.ext.util.WrapperTemplateModel;
+import freemarker.template.AdapterTemplateModel;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.SimpleCollection;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateHashModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+
+/**
+ * The {@link TemplateHashModelEx} for a Java record. The component accessors are bound once per record class (see
+ * {@link PropertyAccessors}), so reading a component is close to a direct accessor call. The keys other than components
+ * (e.g. method calls) are resolved via {@link BeanModel} that created lazily.
+ *
+ * @since 1.3.3
+ */
+public class RecordModel implements TemplateHashModelEx, AdapterTemplateModel, WrapperTemplateModel {
+  private final Object record;
+  private final PropertyAccessors accessors;
+  private final ObjectWrapper wrapper;
+  private BeanModel beanModel;
+
+  /**
+   * Constructor.
+   *
+   * @param record
+   *          a record object
+   * @param wrapper
+   *          the object wrapper for component values
+   */
+  public RecordModel(Object record, ObjectWrapper wrapper) {
+    this.record = record;
+    this.accessors = PropertyAccessors.forClass(record.getClass());
+    this.wrapper = wrapper;
+  }
+
+  /**
+   * Return whether the object can be wrapped by this model.
+   *
+   * @param object
+   *          a target object
+   *
+   * @return {@code true} if it is a record
+   */
+  public static boolean isSupported(Object object) {
+    return object != null && PropertyAccessors.forClass(object.getClass()).isRecord();
+  }
+
+  @Override
+  public TemplateModel get(String key) throws TemplateModelException {
+    if (accessors.hasGetter(key)) {
+      return wrapper.wrap(accessors.getValue(record, key));
+    }
+    if (wrapper instanceof BeansWrapper) {
+      if (beanModel == null) {
+        beanModel = new BeanModel(record, (BeansWrapper) wrapper);
+      }
+      return beanModel.get(key);
+    }
+    return null;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return false;
+  }
+
+  @Override
+  public int size() {
+    return accessors.getPropertyNames().size();
+  }
+
+  @Override
+  public TemplateCollectionModel keys() {
+    return new SimpleCollection(accessors.getPropertyNames(), wrapper);
+  }
+
+  @Override
+  public TemplateCollectionModel values() {
+    List<Object> values = new ArrayList<>(size());
+    for (String name : accessors.getPropertyNames()) {
+      values.add(accessors.getValue(record, name));
+    }
+    return new SimpleCollection(values, wrapper);
+  }
+
+  @Override
+  public Object getAdaptedObject(Class<?> hint) {
+    return record;
+  }
+
+  @Override
+  public Object getWrappedObject() {
+    return record;
+  }
+
+}
@@ -0,0 +1,239 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The limits of a rendering: the number of output characters, the number of binds of generated parameters and the
+ * render time. The limits are checked while rendering (each write to the output and each bind of generated
+ * parameters), so a runaway rendering fails before the SQL is parsed and sent to the database. A value of zero or less
+ * means unlimited.
+ *
+ * @since 1.3.3
+ */
+final class RenderLimits {
+
+  static final RenderLimits UNLIMITED = new RenderLimits(0, 0, 0);
+
+  private final int maxOutputChars;
+  private final int maxGeneratedParams;
+  private final long maxRenderTimeMillis;
+
+  RenderLimits(int maxOutputChars, int maxGeneratedParams, long maxRenderTimeMillis) {
+    this.maxOutputChars = maxOutputChars;
+    this.maxGeneratedParams = maxGeneratedParams;
+    this.maxRenderTimeMillis = maxRenderTimeMillis;
+  }
+
+  static RenderLimits of(FreeMarkerLanguageDriverConfig driverConfig) {
+    if (driverConfig.getMaxOutputChars() <= 0 && driverConfig.getMaxGeneratedParams() <= 0
+        && driverConfig.getMaxRenderTimeMillis() <= 0) {
+      return UNLIMITED;
+    }
+    return new RenderLimits(driverConfig.getMaxOutputChars(), driverConfig.getMaxGeneratedParams(),
+        driverConfig.getMaxRenderTimeMillis());
+  }
+
+  /**
+   * Start a rendering.
+   *
+   * @return the budget of rendering, or {@code null} if it is unlimited
+   */
+  Budget start() {
+    return this == UNLIMITED ? null : new Budget();
+  }
+
+  /**
+   * The budget of a rendering, that tracks the observed sizes.
+   */
+  final class Budget {
+    private final long startTime = System.nanoTime();
+    private int outputChars;
+    private int generatedParams;
+
+    /**
+     * Create the list of generated parameters that checks the limits at each addition.
+     *
+     * @return the list of generated parameters
+     */
+    List<Object> newGeneratedParams() {
+      return new GeneratedParams(this);
+    }
+
+    void checkOutputChars(int length) {
+      outputChars = Math.max(outputChars, length);
+      if (maxOutputChars > 0 && length > maxOutputChars) {
+        throw exceeded("output chars", maxOutputChars, length);
+      }
+      checkRenderTime();
+    }
+
+    void checkGeneratedParams(int count) {
+      generatedParams = Math.max(generatedParams, count);
+      if (maxGeneratedParams > 0 && count > maxGeneratedParams) {
+        throw exceeded("generated params", maxGeneratedParams, count);
+      }
+      checkRenderTime();
+    }
+
+    void checkRenderTime() {
+      if (maxRenderTimeMillis > 0) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        if (elapsed > maxRenderTimeMillis) {
+          throw exceeded("render time (ms)", maxRenderTimeMillis, elapsed);
+        }
+      }
+    }
+
+    private ExceededException exceeded(String limitName, long limit, long observed) {
+      return new ExceededException(String.format(
+          "The render limit of %s is exceeded. limit:%d observed:%d (output chars:%d generated params:%d"
+              + " render time:%dms)",
+          limitName, limit, observed, outputChars, generatedParams,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+    }
+  }
+
+  /**
+   * The list of generated parameters that counts the binds (the {@code #{...}} expressions that refer to them). A value
+   * is usually bound once, but the elements of an array (or list) are bound one by one as {@code _pN[index]}, and a
+   * replayed text binds the values again.
+   */
+  static final class GeneratedParams extends ArrayList<Object> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Budget budget;
+    private int binds;
+
+    GeneratedParams(Budget budget) {
+      this.budget = budget;
+    }
+
+    @Override
+    public boolean add(Object value) {
+      return add(value, 1);
+    }
+
+    boolean add(Object value, int valueBinds) {
+      countBinds(valueBinds);
+      return super.add(value);
+    }
+
+    void countBinds(int count) {
+      budget.checkGeneratedParams(binds + count);
+      binds += count;
+    }
+
+    @Override
+    public void clear() {
+      super.clear();
+      binds = 0;
+    }
+  }
+
+  /**
+   * Add a generated parameter with the number of its binds.
+   *
+   * @param generatedParams
+   *          the generated parameters of current processing
+   * @param value
+   *          the value of parameter
+   * @param binds
+   *          the number of binds (e.g. the length of an array whose elements are bound)
+   */
+  static void addGeneratedParam(List<Object> generatedParams, Object value, int binds) {
+    if (generatedParams instanceof GeneratedParams) {
+      ((GeneratedParams) generatedParams).add(value, binds);
+    } else {
+      generatedParams.add(value);
+    }
+  }
+
+  /**
+   * Count the binds of the generated parameters that are already added (e.g. a replayed text).
+   *
+   * @param generatedParams
+   *          the generated parameters of current processing
+   * @param binds
+   *          the number of binds
+   */
+  static void countBinds(List<?> generatedParams, int binds) {
+    if (generatedParams instanceof GeneratedParams) {
+      ((GeneratedParams) generatedParams).countBinds(binds);
+    }
+  }
+
+  /**
+   * Check the limit before a directive renders the given number of binds (e.g. the rows of a multi-row insert), so a
+   * large rendering fails before the work is done.
+   *
+   * @param generatedParams
+   *          the generated parameters of current processing
+   * @param binds
+   *          the number of binds that will be added
+   */
+  static void checkBinds(List<?> generatedParams, int binds) {
+    if (generatedParams instanceof GeneratedParams) {
+      GeneratedParams params = (GeneratedParams) generatedParams;
+      params.budget.checkGeneratedParams(params.binds + binds);
+    }
+  }
+
+  /**
+   * Get the budget of current processing from its generated parameters.
+   *
+   * @param generatedParams
+   *          the generated parameters of current processing
+   *
+   * @return the budget, or {@code null} if it is unlimited
+   */
+  static Budget getBudget(List<?> generatedParams) {
+    return generatedParams instanceof GeneratedParams ? ((GeneratedParams) generatedParams).budget : null;
+  }
+
+  /**
+   * The exception that is thrown when a limit is exceeded. It is unchecked for passing through the writer and the
+   * directives, and it is reported with the statement id by {@link FreeMarkerSqlSource}.
+   */
+  static final class ExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    ExceededException(String message) {
+      super(message, null, false, false);
+    }
+  }
+
+  /**
+   * Find the exceeded limit in the cause chain.
+   *
+   * @param e
+   *          the exception of rendering
+   *
+   * @return the exception of exceeded limit, or {@code null}
+   */
+  static ExceededException findExceeded(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ExceededException) {
+        return (ExceededException) cause;
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,1100 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import freemarker.core.Environment;
+import freemarker.core.InvalidReferenceException;
+import freemarker.core.PlainTextOutputFormat;
+import freemarker.core.TemplateMarkupOutputModel;
+import freemarker.core.TemplateValueFormatException;
+import freemarker.core.UndefinedOutputFormat;
+import freemarker.ext.beans.BeanModel;
+import freemarker.template.SimpleNumber;
+import freemarker.template.SimpleScalar;
+import freemarker.template.Template;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateCollectionModelEx;
+import freemarker.template.TemplateDateModel;
+import freemarker.template.TemplateDirectiveBody;
+import freemarker.template.TemplateDirectiveModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateModelIterator;
+import freemarker.template.TemplateNumberModel;
+import freemarker.template.TemplateScalarModel;
+import freemarker.template.TemplateSequenceModel;
+
+/**
+ * The render plan that is compiled from a template tree once. It renders the template by calling the pre-built nodes
+ * instead of interpreting the template tree, but it uses the processing environment of FreeMarker for variables,
+ * {@code #assign} and directive calls, so the semantics are same as the interpreter.
+ * <p>
+ * Supported subset is text, comments, {@code ${...}}, {@code #if}/{@code #elseif}/{@code #else}, {@code #list} (with
+ * {@code #sep} and {@code #else}), {@code #assign} and calls of {@link TemplateDirectiveModel} (such as
+ * {@code <@p>}, {@code <@where>} and {@code <@trim>}). Supported expressions are variables, dotted names, string,
+ * number and boolean literals, {@code ??}, {@code !default}, {@code ?has_content}, the loop variable built-ins,
+ * {@code ==}, {@code !=}, {@code !}, {@code &&}, {@code ||} and parentheses. A template that uses other constructs is
+ * not compiled (and no template is compiled when the template tree of FreeMarker is not supported, see
+ * {@link TemplateTree}). Whether a template is supported is decided once when it is compiled, so a rendering is never
+ * aborted and replayed by the interpreter. The values are formatted and compared by the public API of FreeMarker, and
+ * a value that the interpreter cannot handle either (e.g. a missing value or a boolean interpolation) is reported by
+ * {@link TemplateException}. Only the calls of {@link TemplateDirectiveModel} are supported, so calling a
+ * {@code TemplateTransformModel} fails.
+ * </p>
+ *
+ * @since 1.3.3
+ */
+final class RenderPlan {
+
+  private static final Pattern LIST_PATTERN = Pattern.compile("#list (.+) as ([A-Za-z_$][\\w$]*)");
+
+  private static final Pattern ASSIGNMENT_PATTERN = Pattern.compile("([A-Za-z_$][\\w$]*) = (.+)");
+
+  private static final String ASSIGN_PREFIX = "#assign ";
+
+  private static final TemplateModel[] NO_LOOP_VARS = new TemplateModel[0];
+
+  private static final Object COLLATOR_KEY = new Object();
+
+  /**
+   * The directives that only transform the body text.
+   */
+  private static final Set<Class<?>> TEXT_DIRECTIVE_TYPES = Collections
+      .unmodifiableSet(new HashSet<>(Arrays.asList(WhereDirective.class, SetDirective.class, TrimDirective.class)));
+
+  private final Node root;
+
+  private RenderPlan(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Compile the template into a render plan.
+   *
+   * @param template
+   *          the template
+   *
+   * @return the render plan, or {@code null} if the template uses constructs that are not supported
+   */
+  static RenderPlan compile(Template template) {
+    if (!TemplateTree.isSupported() || !"computer".equals(template.getNumberFormat())
+        || !"true,false".equals(template.getBooleanFormat()) || template.isClassicCompatible()
+        || !(template.getOutputFormat() instanceof UndefinedOutputFormat
+            || template.getOutputFormat() instanceof PlainTextOutputFormat)
+        || template.getInterpolationSyntax() == freemarker.template.Configuration.SQUARE_BRACKET_INTERPOLATION_SYNTAX
+        || !template.getAutoImports().isEmpty() || !template.getAutoIncludes().isEmpty()) {
+      return null;
+    }
+    try {
+      return new RenderPlan(compileElement(TemplateTree.root(template), Collections.emptyList()));
+    } catch (UnsupportedConstructException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Render the template into the output of processing environment.
+   *
+   * @param env
+   *          the processing environment that is created for the template (it is not processed)
+   */
+  void render(Environment env) throws TemplateException, IOException {
+    if (root != null) {
+      root.render(env, null);
+    }
+  }
+
+  /**
+   * Walk the control flow of the template without rendering the text, and build the shape key. The key consists of
+   * the taken branches, the number of iterations and the text that is written by interpolations and {@code <@p>}
+   * directives, so the rendered text is same for the same key. The {@code <@p>} directives are executed as the
+   * rendering, so the generated parameters are added to the processing environment.
+   *
+   * @param env
+   *          the processing environment that is created for the template (it is not processed)
+   *
+   * @return the shape key
+   *
+   * @throws UnsupportedConstructException
+   *           if a value (or a directive) that the walk does not support is found
+   */
+  String walk(Environment env) throws TemplateException, IOException {
+    StringBuilder shape = new StringBuilder();
+    if (root != null) {
+      root.walk(env, null, shape);
+    }
+    return shape.toString();
+  }
+
+  private static Node compileElement(TemplateTree node, List<String> loopVars) {
+    if (node == null) {
+      return null;
+    }
+    switch (node.kind()) {
+      case SEQUENCE:
+        return compileChildren(node, loopVars);
+      case COMMENT:
+        return null;
+      case TEXT:
+        return compileText(node);
+      case INTERPOLATION:
+        return compileInterpolation(node, loopVars);
+      case BRANCH:
+        return new IfNode(new Node[] { compileChildren(node, loopVars) },
+            new Expression[] { compileCondition(node, loopVars) });
+      case IF:
+        return compileIf(node, loopVars);
+      case LIST:
+        return compileList(node, null, loopVars);
+      case LIST_WITH_ELSE:
+        if (node.childCount() != 2 || node.child(1).kind() != TemplateTree.Kind.LIST_ELSE) {
+          throw new UnsupportedConstructException();
+        }
+        return compileList(node.child(0), compileChildren(node.child(1), loopVars), loopVars);
+      case SEP:
+        if (loopVars.isEmpty()) {
+          throw new UnsupportedConstructException();
+        }
+        return new SepNode(compileChildren(node, loopVars));
+      case ASSIGNMENT:
+        return compileAssignment(node.description(), ASSIGN_PREFIX, loopVars);
+      case ASSIGNMENTS:
+        return compileAssignments(node, loopVars);
+      case DIRECTIVE_CALL:
+        return compileDirectiveCall(node, loopVars);
+      default:
+        throw new UnsupportedConstructException();
+    }
+  }
+
+  private static Node compileChildren(TemplateTree node, List<String> loopVars) {
+    List<Node> nodes = new ArrayList<>();
+    for (int i = 0; i < node.childCount(); i++) {
+      Node child = compileElement(node.child(i), loopVars);
+      if (child != null) {
+        nodes.add(child);
+      }
+    }
+    return nodes.size() == 1 ? nodes.get(0) : new SequenceNode(nodes.toArray(new Node[0]));
+  }
+
+  private static Node compileText(TemplateTree node) {
+    String text = node.text();
+    if (text == null) {
+      // #noparse
+      throw new UnsupportedConstructException();
+    }
+    return new TextNode(text);
+  }
+
+  private static Node compileInterpolation(TemplateTree node, List<String> loopVars) {
+    String description = node.description();
+    if (!description.startsWith("${") || !description.endsWith("}")) {
+      throw new UnsupportedConstructException();
+    }
+    Expression expression = ExpressionParser.parse(description.substring(2, description.length() - 1), loopVars);
+    return new InterpolationNode(description, expression);
+  }
+
+  private static Node compileIf(TemplateTree node, List<String> loopVars) {
+    int size = node.childCount();
+    Node[] bodies = new Node[size];
+    Expression[] conditions = new Expression[size];
+    for (int i = 0; i < size; i++) {
+      TemplateTree branch = node.child(i);
+      if (branch.kind() != TemplateTree.Kind.BRANCH) {
+        throw new UnsupportedConstructException();
+      }
+      conditions[i] = compileCondition(branch, loopVars);
+      bodies[i] = compileChildren(branch, loopVars);
+    }
+    return new IfNode(bodies, conditions);
+  }
+
+  private static Expression compileCondition(TemplateTree branch, List<String> loopVars) {
+    String description = branch.description();
+    if ("#else".equals(description)) {
+      return null;
+    } else if (description.startsWith("#if ")) {
+      return ExpressionParser.parse(description.substring(4), loopVars);
+    } else if (description.startsWith("#elseif ")) {
+      return ExpressionParser.parse(description.substring(8), loopVars);
+    }
+    throw new UnsupportedConstructException();
+  }
+
+  private static Node compileList(TemplateTree node, Node elseBody, List<String> loopVars) {
+    if (node.kind() != TemplateTree.Kind.LIST) {
+      throw new UnsupportedConstructException();
+    }
+    Matcher matcher = LIST_PATTERN.matcher(node.description());
+    if (!matcher.matches()) {
+      throw new UnsupportedConstructException();
+    }
+    Expression listExpression = ExpressionParser.parse(matcher.group(1), loopVars);
+    String loopVar = matcher.group(2);
+    List<String> bodyLoopVars = new ArrayList<>(loopVars);
+    bodyLoopVars.add(loopVar);
+    return new ListNode(listExpression, loopVar, compileChildren(node, bodyLoopVars), elseBody);
+  }
+
+  private static Node compileAssignments(TemplateTree node, List<String> loopVars) {
+    if (!"#assign-container".equals(node.description())) {
+      throw new UnsupportedConstructException();
+    }
+    Node[] nodes = new Node[node.childCount()];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = compileAssignment(node.child(i).description(), "", loopVars);
+    }
+    return new SequenceNode(nodes);
+  }
+
+  private static Node compileAssignment(String description, String prefix, List<String> loopVars) {
+    if (!description.startsWith(prefix)) {
+      throw new UnsupportedConstructException();
+    }
+    Matcher matcher = ASSIGNMENT_PATTERN.matcher(description.substring(prefix.length()));
+    if (!matcher.matches()) {
+      throw new UnsupportedConstructException();
+    }
+    String name = matcher.group(1);
+    Expression expression = ExpressionParser.parse(matcher.group(2), loopVars);
+    return new AssignmentNode(name, expression);
+  }
+
+  private static Node compileDirectiveCall(TemplateTree node, List<String> loopVars) {
+    String description = node.description();
+    if (!description.startsWith("@")) {
+      throw new UnsupportedConstructException();
+    }
+    ExpressionParser parser = new ExpressionParser(description.substring(1), loopVars);
+    Expression directive = parser.parseVariable();
+    Map<String, Expression> params = new LinkedHashMap<>();
+    while (!parser.isEnd()) {
+      String name = parser.parseParamName();
+      params.put(name, parser.parseExpression());
+    }
+    Node body = node.childCount() == 0 ? null : compileChildren(node, loopVars);
+    return new DirectiveCallNode(directive, params, body);
+  }
+
+  /**
+   * The rule is same as the interpolation of FreeMarker (with the {@code computer} number format).
+   */
+  private static String toOutput(Environment env, TemplateModel model, String source) throws TemplateException {
+    try {
+      if (model instanceof TemplateNumberModel) {
+        Number number = ((TemplateNumberModel) model).getAsNumber();
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte
+            || number instanceof BigInteger) {
+          // Same as the "computer" number format
+          return number.toString();
+        }
+        return env.getTemplateNumberFormat().formatToPlainText((TemplateNumberModel) model);
+      } else if (model instanceof TemplateDateModel) {
+        TemplateDateModel date = (TemplateDateModel) model;
+        if (date.getDateType() == TemplateDateModel.UNKNOWN) {
+          throw new TemplateModelException("The date type of " + source + " is unknown, so it cannot be formatted.");
+        }
+        return env.getTemplateDateFormat(date.getDateType(), date.getAsDate().getClass()).formatToPlainText(date);
+      }
+    } catch (TemplateValueFormatException e) {
+      throw new TemplateModelException("Failed to format " + source + ". " + e.getMessage(), e);
+    }
+    if (model instanceof TemplateScalarModel) {
+      String value = ((TemplateScalarModel) model).getAsString();
+      if (value != null) {
+        return value;
+      }
+    }
+    throw new TemplateModelException(
+        source + " cannot be converted to string. type:" + (model == null ? null : model.getClass().getName()));
+  }
+
+  private static TemplateModel requireNonMissing(Environment env, TemplateModel model) throws TemplateException {
+    if (model == null) {
+      throw new InvalidReferenceException("The expression has evaluated to null or missing.", env);
+    }
+    return model;
+  }
+
+  private static boolean isTrue(Environment env, TemplateModel model) throws TemplateException {
+    if (!(requireNonMissing(env, model) instanceof TemplateBooleanModel)) {
+      throw new TemplateModelException("The condition should be a boolean. type:" + model.getClass().getName());
+    }
+    return ((TemplateBooleanModel) model).getAsBoolean();
+  }
+
+  private static TemplateModel toBooleanModel(boolean value) {
+    return value ? TemplateBooleanModel.TRUE : TemplateBooleanModel.FALSE;
+  }
+
+  /**
+   * The rule is same as the {@code ?has_content} built-in of FreeMarker.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static boolean hasContent(TemplateModel model) throws TemplateException {
+    if (model == null) {
+      return false;
+    } else if (model instanceof BeanModel) {
+      return !((BeanModel) model).isEmpty();
+    } else if (model instanceof TemplateSequenceModel) {
+      return ((TemplateSequenceModel) model).size() > 0;
+    } else if (model instanceof TemplateScalarModel) {
+      String value = ((TemplateScalarModel) model).getAsString();
+      return value != null && !value.isEmpty();
+    } else if (model instanceof TemplateMarkupOutputModel) {
+      TemplateMarkupOutputModel markup = (TemplateMarkupOutputModel) model;
+      return !markup.getOutputFormat().isEmpty(markup);
+    } else if (model instanceof TemplateCollectionModelEx) {
+      return !((TemplateCollectionModelEx) model).isEmpty();
+    } else if (model instanceof TemplateCollectionModel) {
+      return ((TemplateCollectionModel) model).iterator().hasNext();
+    } else if (model instanceof TemplateHashModel) {
+      return !((TemplateHashModel) model).isEmpty();
+    } else if (model instanceof TemplateNumberModel || model instanceof TemplateDateModel
+        || model instanceof TemplateBooleanModel) {
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * The rule is same as the {@code ==} operator of FreeMarker.
+   */
+  private static boolean isEqual(Environment env, TemplateModel left, TemplateModel right) throws TemplateException {
+    if (left instanceof TemplateNumberModel && right instanceof TemplateNumberModel) {
+      return env.getArithmeticEngine().compareNumbers(((TemplateNumberModel) left).getAsNumber(),
+          ((TemplateNumberModel) right).getAsNumber()) == 0;
+    } else if (left instanceof TemplateDateModel && right instanceof TemplateDateModel) {
+      TemplateDateModel leftDate = (TemplateDateModel) left;
+      TemplateDateModel rightDate = (TemplateDateModel) right;
+      if (leftDate.getDateType() == TemplateDateModel.UNKNOWN || leftDate.getDateType() != rightDate.getDateType()) {
+        throw new TemplateModelException("The dates of unknown or different types cannot be compared.");
+      }
+      return leftDate.getAsDate().getTime() == rightDate.getAsDate().getTime();
+    } else if (left instanceof TemplateScalarModel && right instanceof TemplateScalarModel
+        && !(left instanceof TemplateDateModel || right instanceof TemplateDateModel)) {
+      String leftValue = ((TemplateScalarModel) left).getAsString();
+      String rightValue = ((TemplateScalarModel) right).getAsString();
+      if (leftValue == null || rightValue == null) {
+        throw new TemplateModelException("The string value is null, so it cannot be compared.");
+      }
+      // FreeMarker compares strings by the collator of current locale
+      return leftValue.equals(rightValue) || getCollator(env).compare(leftValue, rightValue) == 0;
+    } else if (left instanceof TemplateBooleanModel && right instanceof TemplateBooleanModel) {
+      return ((TemplateBooleanModel) left).getAsBoolean() == ((TemplateBooleanModel) right).getAsBoolean();
+    }
+    throw new TemplateModelException("The values of these types cannot be compared. left:"
+        + left.getClass().getName() + ", right:" + right.getClass().getName());
+  }
+
+  /**
+   * Get the collator of current locale, that is cached per processing (same as the environment of FreeMarker).
+   */
+  private static Collator getCollator(Environment env) {
+    CollatorHolder holder = (CollatorHolder) env.getCustomState(COLLATOR_KEY);
+    Locale locale = env.getLocale();
+    if (holder == null || !holder.locale.equals(locale)) {
+      holder = new CollatorHolder(locale, Collator.getInstance(locale));
+      env.setCustomState(COLLATOR_KEY, holder);
+    }
+    return holder.collator;
+  }
+
+  private static final class CollatorHolder {
+    private final Locale locale;
+    private final Collator collator;
+
+    CollatorHolder(Locale locale, Collator collator) {
+      this.locale = locale;
+      this.collator = collator;
+    }
+  }
+
+  /**
+   * The exception that indicates the template is not supported by the render plan (or the shape of a value cannot be
+   * walked).
+   */
+  static final class UnsupportedConstructException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedConstructException() {
+      super(null, null, false, false);
+    }
+  }
+
+  private interface Node {
+    void render(Environment env, Scope scope) throws TemplateException, IOException;
+
+    void walk(Environment env, Scope scope, StringBuilder shape) throws TemplateException, IOException;
+  }
+
+  private interface Expression {
+    /**
+     * Evaluate the expression.
+     *
+     * @return the value, or {@code null} if it is missing
+     */
+    TemplateModel eval(Environment env, Scope scope) throws TemplateException;
+  }
+
+  /**
+   * The loop variable of current iteration.
+   */
+  private static final class Scope {
+    private final Scope parent;
+    private final String name;
+    private final TemplateModel value;
+    private final int index;
+    private final boolean hasNext;
+
+    Scope(Scope parent, String name, TemplateModel value, int index, boolean hasNext) {
+      this.parent = parent;
+      this.name = name;
+      this.value = value;
+      this.index = index;
+      this.hasNext = hasNext;
+    }
+
+    static Scope find(Scope scope, String name) {
+      for (Scope current = scope; current != null; current = current.parent) {
+        if (current.name.equals(name)) {
+          return current;
+        }
+      }
+      // The loop variables are resolved when compiling
+      throw new IllegalStateException("The loop variable '" + name + "' is not found.");
+    }
+  }
+
+  private static void appendText(StringBuilder shape, String text) {
+    shape.append('s').append(text.length()).append(':').append(text);
+  }
+
+  private static final class TextNode implements Node {
+    private final String text;
+
+    TextNode(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public void render(Environment env, Scope scope) throws IOException {
+      env.getOut().write(text);
+    }
+
+    @Override
+    public void walk(Environment env, Scope scope, StringBuilder shape) {
+      // The text is fixed
+    }
+  }
+
+  private static final class InterpolationNode implements Node {
+    private final String source;
+    private final Expression expression;
+
+    InterpolationNode(String source, Expression expression) {
+      this.source = source;
+      this.expression = expression;
+    }
+
+    @Override
+    public void render(Environment env, Scope scope) throws TemplateException, IOException {
+      env.getOut().write(toOutput(env, expression.eval(env, scope), source));
+    }
+
+    @Override
+    public void walk(Environment env, Scope scope, StringBuilder shape) throws TemplateException {
+      appendText(shape, toOutput(env, expression.eval(env, scope), source));
+    }
+  }
+
+  private static final class AssignmentNode implements Node {
+    private final String name;
+    private final Expression expression;
+
+    AssignmentNode(String name, Expression expression) {
+      this.name = name;
+      this.expression = expression;
+    }
+
+    @Override
+    public void render(Environment env, Scope scope) throws TemplateException {
+      env.setVariable(name, requireNonMissing(env, expression.eval(env, scope)));
+    }
+
+    @Override
+    public void walk(Environment env, Scope scope, StringBuilder shape) throws TemplateException {
+      render(env, scope);
+    }
+  }
+
+  private static final class SequenceNode implements Node {
+    private final Node[] nodes;
+
+    SequenceNode(Node[] nodes) {
+      this.nodes = nodes;
+    }
+
+    @Override
+    public void render(Environment env, Scope scope) throws TemplateException, IOException {
+      for (Node node : nodes) {
+        node.render(env, scope);
+      }
+    }
+
+    @Override
+    public void walk(Environment env, Scope scope, StringBuilder shape) throws TemplateException, IOException {
+      for (Node node : nodes) {
+        node.walk(env, scope, shape);
+      }
+    }
+  }
+
+  private static final class IfNode implements Node {
+    private final Node[] bodies;
+    private final Expression[] conditions;
+
+    IfNode(Node[] bodies, Expression[] conditions) {
+      this.bodies = bodies;
+      this.conditions = conditions;
+    }
+
+    @Override
+    public void render(Environment env, Scope scope) throws TemplateException, IOException {
+      int branch = selectBranch(env, scope);
+      if (branch >= 0) {
+        bodies[branch].render(env, scope);
+      }
+    }
+
+    @Override
+    public void walk(Environment env, Scope scope, StringBuilder shape) throws TemplateException, IOException {
+      int branch = selectBranch(env, scope);
+      shape.append('b').append(branch).append(';');
+      if (branch >= 0) {
+        bodies[branch].walk(env, scope, shape);
+      }
+    }
+
+    private int selectBranch(Environment env, Scope scope) throws TemplateException {
+      for (int i = 0; i < conditions.length; i++) {
+        if (conditions[i] == null || isTrue(env, conditions[i].eval(env, scope))) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  private static final class ListNode implements Node {
+    private final Expression listExpression;
+    private final String loopVar;
+    private final Node body;
+    private final Node elseBody;
+
+    ListNode(Expression listExpression, String loopVar, Node body, Node elseBody) {
+      this.listExpression = listExpression;
+      this.loopVar = loopVar;
+      this.body = body;
+      this.elseBody = elseBody;
+    }
+
+    @Override
+    public void render(Environment env, Scope scope) throws TemplateException, IOException {
+      if (iterate(env, scope, false, iteration -> body.render(env, iteration)) == 0 && elseBody != null) {
+        elseBody.render(env, scope);
+      }
+    }
+
+    @Override
+    public void walk(Environment env, Scope scope, StringBuilder shape) throws TemplateException, IOException {
+      int count = iterate(env, scope, true, iteration -> {
+        shape.append(iteration.hasNext ? 'n' : 'x');
+        body.walk(env, iteration, shape);
+      });
+      shape.append('e');
+      if (count == 0 && elseBody != null) {
+        elseBody.walk(env, scope, shape);
+      }
+    }
+
+    private int iterate(Environment env, Scope scope, boolean walking, Iteration iteration)
+        throws TemplateException, IOException {
+      TemplateModel list = requireNonMissing(env, listExpression.eval(env, scope));
+      int count = 0;
+      if (walking && list instanceof SinglePassCollectionModel) {
+        // Should not be consumed before rendering
+        throw new UnsupportedConstructException();
+      } else if (list instanceof TemplateCollectionModel) {
+        TemplateModelIterator iterator = ((TemplateCollectionModel) list).iterator();
+        boolean hasNext = iterator.hasNext();
+        while (hasNext) {
+          TemplateModel item = iterator.next();
+          hasNext = iterator.hasNext();
+          iteration.accept(new Scope(scope, loopVar, item, count++, hasNext));
+        }
+      } else if (list instanceof TemplateSequenceModel) {
+        TemplateSequenceModel sequence = (TemplateSequenceModel) list;
+        int size = sequence.size();
+        for (; count < size; count++) {
+          iteration.accept(new Scope(scope, loopVar, sequence.get(count), count, count + 1 < size));
+        }
+      } else {
+        throw new TemplateModelException(
+            "The value to list should be a sequence or a collection. type:" + list.getClass().getName());
+      }
+      return count;
+    }
+  }
+
+  private interface Iteration {
+    void accept(Scope scope) throws TemplateException, IOException;
+  }
+
+  private static final class SepNode implements Node {
+    private final Node body;
+
+    SepNode(Node body) {
+      this.body = body;
+    }
+
+    @Override
+    public void render(Environment env, Scope scope) throws TemplateException, IOException {
+      // The #sep is compiled only in a #list
+      if (scope.hasNext) {
+        body.render(env, scope);
+      }
+    }
+
+    @Override
+    public void walk(Environment env, Scope scope, StringBuilder shape) throws TemplateException, IOException {
+      if (scope.hasNext) {
+        body.walk(env, scope, shape);
+      }
+    }
+  }
+
+  private static final class DirectiveCallNode implements Node {
+    private final Expression directive;
+    private final Map<String, Expression> params;
+    private final Node body;
+
+    DirectiveCallNode(Expression directive, Map<String, Expression> params, Node body) {
+      this.directive = directive;
+      this.params = params;
+      this.body = body;
+    }
+
+    @Override
+    public void render(Environment env, Scope scope) throws TemplateException, IOException {
+      TemplateModel model = requireNonMissing(env, directive.eval(env, scope));
+      if (!(model instanceof TemplateDirectiveModel)) {
+        throw new TemplateModelException(
+            "The compiled template can call a TemplateDirectiveModel only. type:" + model.getClass().getName());
+      }
+      Map<String, TemplateModel> args = evalParams(env, scope, false);
+      TemplateDirectiveBody directiveBody = body == null ? null : out -> {
+        Writer previous = env.getOut();
+        env.setOut(out);
+        try {
+          body.render(env, scope);
+        } finally {
+          env.setOut(previous);
+        }
+      };
+      ((TemplateDirectiveModel) model).execute(env, args, NO_LOOP_VARS, directiveBody);
+    }
+
+    @Override
+    public void walk(Environment env, Scope scope, StringBuilder shape) throws TemplateException, IOException {
+      TemplateModel model = directive.eval(env, scope);
+      Class<?> directiveType = model == null ? null : model.getClass();
+      if (directiveType == MyBatisParamDirective.class) {
+        // The text of parameter reflects the type of value, so it is a part of the shape
+        StringWriter out = new StringWriter();
+        Writer previous = env.getOut();
+        env.setOut(out);
+        try {
+          ((TemplateDirectiveModel) model).execute(env, evalParams(env, scope, true), NO_LOOP_VARS, null);
+        } finally {
+          env.setOut(previous);
+        }
+        appendText(shape, out.toString());
+      } else if (TEXT_DIRECTIVE_TYPES.contains(directiveType)) {
+        // The output of these directives depends only on the parameters and the body text
+        appendText(shape, directiveType.getName());
+        for (TemplateModel value : evalParams(env, scope, true).values()) {
+          if (value != null && !(value instanceof TemplateScalarModel)) {
+            throw new UnsupportedConstructException();
+          }
+          appendText(shape, value == null ? "" : ((TemplateScalarModel) value).getAsString());
+          shape.append(value == null ? 'z' : 'v');
+        }
+        if (body != null) {
+          body.walk(env, scope, shape);
+        }
+      } else {
+        // The output of other directives is unknown
+        throw new UnsupportedConstructException();
+      }
+    }
+
+    private Map<String, TemplateModel> evalParams(Environment env, Scope scope, boolean walking)
+        throws TemplateException {
+      Map<String, TemplateModel> args = params.isEmpty() ? Collections.emptyMap() : new LinkedHashMap<>();
+      for (Map.Entry<String, Expression> param : params.entrySet()) {
+        TemplateModel value = param.getValue().eval(env, scope);
+        if (walking && value instanceof SinglePassCollectionModel) {
+          // Should not be consumed before rendering
+          throw new UnsupportedConstructException();
+        }
+        args.put(param.getKey(), value);
+      }
+      return args;
+    }
+  }
+
+  /**
+   * The parser of the canonical form of supported expressions.
+   */
+  private static final class ExpressionParser {
+    private final String source;
+    private final List<String> loopVars;
+    private int position;
+
+    ExpressionParser(String source, List<String> loopVars) {
+      this.source = source;
+      this.loopVars = loopVars;
+    }
+
+    static Expression parse(String source, List<String> loopVars) {
+      ExpressionParser parser = new ExpressionParser(source, loopVars);
+      Expression expression = parser.parseExpression();
+      if (!parser.isEnd()) {
+        throw new UnsupportedConstructException();
+      }
+      return expression;
+    }
+
+    boolean isEnd() {
+      skipWhitespaces();
+      return position >= source.length();
+    }
+
+    String parseParamName() {
+      skipWhitespaces();
+      String name = parseIdentifier();
+      if (!consume("=") || peek("=")) {
+        throw new UnsupportedConstructException();
+      }
+      return name;
+    }
+
+    Expression parseVariable() {
+      skipWhitespaces();
+      return variable(parseIdentifier());
+    }
+
+    Expression parseExpression() {
+      Expression left = parseAnd();
+      while (consumeOperator("||")) {
+        Expression l = left;
+        Expression r = parseAnd();
+        left = (env, scope) -> toBooleanModel(isTrue(env, l.eval(env, scope)) || isTrue(env, r.eval(env, scope)));
+      }
+      return left;
+    }
+
+    private Expression parseAnd() {
+      Expression left = parseComparison();
+      while (consumeOperator("&&")) {
+        Expression l = left;
+        Expression r = parseComparison();
+        left = (env, scope) -> toBooleanModel(isTrue(env, l.eval(env, scope)) && isTrue(env, r.eval(env, scope)));
+      }
+      return left;
+    }
+
+    private Expression parseComparison() {
+      Expression left = parseUnary();
+      boolean equal;
+      if (consumeOperator("==")) {
+        equal = true;
+      } else if (consumeOperator("!=")) {
+        equal = false;
+      } else if (consumeOperator("= ")) {
+        // The '=' without spaces is the end of directive parameter value
+        equal = true;
+      } else {
+        return left;
+      }
+      Expression right = parseUnary();
+      return (env, scope) -> toBooleanModel(isEqual(env, requireNonMissing(env, left.eval(env, scope)),
+          requireNonMissing(env, right.eval(env, scope))) == equal);
+    }
+
+    private Expression parseUnary() {
+      skipWhitespaces();
+      if (peek("!") && !peek("!=")) {
+        position++;
+        Expression operand = parseUnary();
+        return (env, scope) -> toBooleanModel(!isTrue(env, operand.eval(env, scope)));
+      }
+      return parsePostfix();
+    }
+
+    private Expression parsePostfix() {
+      skipWhitespaces();
+      // A missing value in parentheses is treated as missing by '??', '!' and '?has_content' (same as FreeMarker)
+      boolean parenthesized = peek("(");
+      Expression expression = parsePrimary();
+      while (true) {
+        Expression operand = parenthesized ? nullIfMissing(expression) : expression;
+        parenthesized = false;
+        if (consume("??")) {
+          Expression target = operand;
+          expression = (env, scope) -> toBooleanModel(target.eval(env, scope) != null);
+        } else if (peek("?")) {
+          position++;
+          String name = parseIdentifier();
+          expression = builtIn("has_content".equals(name) ? operand : expression, name);
+        } else if (peek(".")) {
+          position++;
+          String key = parseIdentifier();
+          Expression target = expression;
+          expression = (env, scope) -> {
+            TemplateModel model = requireNonMissing(env, target.eval(env, scope));
+            if (!(model instanceof TemplateHashModel)) {
+              throw new TemplateModelException(
+                  "The value should be a hash to get '" + key + "'. type:" + model.getClass().getName());
+            }
+            return ((TemplateHashModel) model).get(key);
+          };
+        } else if (peek("!") && !peek("!=")) {
+          position++;
+          if (position >= source.length() || Character.isWhitespace(source.charAt(position))
+              || source.charAt(position) == ')') {
+            // The default value operator without the default value
+            throw new UnsupportedConstructException();
+          }
+          Expression target = operand;
+          Expression defaultValue = parsePrimary();
+          expression = (env, scope) -> {
+            TemplateModel model = target.eval(env, scope);
+            return model != null ? model : defaultValue.eval(env, scope);
+          };
+        } else {
+          return expression;
+        }
+      }
+    }
+
+    private Expression parsePrimary() {
+      skipWhitespaces();
+      if (position >= source.length()) {
+        throw new UnsupportedConstructException();
+      }
+      char c = source.charAt(position);
+      if (c == '(') {
+        position++;
+        Expression expression = parseExpression();
+        skipWhitespaces();
+        if (!consume(")")) {
+          throw new UnsupportedConstructException();
+        }
+        return expression;
+      } else if (c == '"' || c == '\'') {
+        TemplateModel value = new SimpleScalar(parseString(c));
+        return (env, scope) -> value;
+      } else if (Character.isDigit(c)) {
+        int start = position;
+        while (position < source.length()
+            && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+          position++;
+        }
+        TemplateModel value;
+        try {
+          value = new SimpleNumber(new BigDecimal(source.substring(start, position)));
+        } catch (NumberFormatException e) {
+          throw new UnsupportedConstructException();
+        }
+        return (env, scope) -> value;
+      }
+      String identifier = parseIdentifier();
+      if ("true".equals(identifier) || "false".equals(identifier)) {
+        TemplateModel value = toBooleanModel(Boolean.parseBoolean(identifier));
+        return (env, scope) -> value;
+      }
+      return variable(identifier);
+    }
+
+    private static Expression nullIfMissing(Expression expression) {
+      return (env, scope) -> {
+        try {
+          return expression.eval(env, scope);
+        } catch (InvalidReferenceException e) {
+          return null;
+        }
+      };
+    }
+
+    private Expression variable(String name) {
+      if (loopVars.contains(name)) {
+        return (env, scope) -> Scope.find(scope, name).value;
+      }
+      for (String loopVar : loopVars) {
+        if (name.equals(loopVar + "_index")) {
+          return (env, scope) -> new SimpleNumber(Scope.find(scope, loopVar).index);
+        } else if (name.equals(loopVar + "_has_next")) {
+          return (env, scope) -> toBooleanModel(Scope.find(scope, loopVar).hasNext);
+        }
+      }
+      return (env, scope) -> env.getVariable(name);
+    }
+
+    private Expression builtIn(Expression target, String name) {
+      if ("has_content".equals(name)) {
+        return (env, scope) -> toBooleanModel(hasContent(target.eval(env, scope)));
+      }
+      // The built-ins for loop variables
+      String loopVar = source.substring(0, position - name.length() - 1).trim();
+      int start = Math.max(loopVar.lastIndexOf(' '), loopVar.lastIndexOf('('));
+      loopVar = loopVar.substring(start + 1);
+      if (!loopVars.contains(loopVar)) {
+        throw new UnsupportedConstructException();
+      }
+      String var = loopVar;
+      switch (name) {
+        case "index":
+          return (env, scope) -> new SimpleNumber(Scope.find(scope, var).index);
+        case "counter":
+          return (env, scope) -> new SimpleNumber(Scope.find(scope, var).index + 1);
+        case "has_next":
+          return (env, scope) -> toBooleanModel(Scope.find(scope, var).hasNext);
+        case "is_last":
+          return (env, scope) -> toBooleanModel(!Scope.find(scope, var).hasNext);
+        case "is_first":
+          return (env, scope) -> toBooleanModel(Scope.find(scope, var).index == 0);
+        default:
+          throw new UnsupportedConstructException();
+      }
+    }
+
+    private String parseIdentifier() {
+      int start = position;
+      while (position < source.length()) {
+        char c = source.charAt(position);
+        if (!(Character.isLetterOrDigit(c) || c == '_' || c == '$') || position == start && Character.isDigit(c)) {
+          break;
+        }
+        position++;
+      }
+      if (start == position) {
+        throw new UnsupportedConstructException();
+      }
+      return source.substring(start, position);
+    }
+
+    private String parseString(char quote) {
+      int start = ++position;
+      StringBuilder value = new StringBuilder();
+      while (position < source.length()) {
+        char c = source.charAt(position++);
+        if (c == quote) {
+          String raw = source.substring(start, position - 1);
+          if (raw.contains("${") || raw.contains("#{")) {
+            // Interpolations in string literals are not supported
+            throw new UnsupportedConstructException();
+          }
+          return value.toString();
+        } else if (c == '\\') {
+          if (position >= source.length()) {
+            break;
+          }
+          value.append(unescape(source.charAt(position++)));
+        } else {
+          value.append(c);
+        }
+      }
+      throw new UnsupportedConstructException();
+    }
+
+    private static char unescape(char c) {
+      switch (c) {
+        case '"':
+        case '\'':
+        case '\\':
+        case '{':
+          return c;
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 't':
+          return '\t';
+        default:
+          throw new UnsupportedConstructException();
+      }
+    }
+
+    private boolean consumeOperator(String operator) {
+      skipWhitespaces();
+      return consume(operator);
+    }
+
+    private boolean consume(String token) {
+      if (peek(token)) {
+        position += token.length();
+        return true;
+      }
+      return false;
+    }
+
+    private boolean peek(String token) {
+      return source.startsWith(token, position);
+    }
+
+    private void skipWhitespaces() {
+      while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+        position++;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,279 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+import freemarker.core.Environment;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateDirectiveBody;
+import freemarker.template.TemplateDirectiveModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateNumberModel;
+import freemarker.template.TemplateScalarModel;
+import freemarker.template.utility.DeepUnwrap;
+
+/**
+ * Custom FreeMarker directive for generating the IN condition of composite keys. For the database that supports row
+ * value expressions, it generates the {@code (a, b) IN ((?, ?), (?, ?))} condition:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ *     DELETE FROM names WHERE &lt;@rowIn columns="firstName, lastName" items=names/&gt;
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * For other databases, it falls back to the {@code ((a = ? AND b = ?) OR (a = ? AND b = ?))} condition. All values are
+ * bound via generated parameters (same as {@code <@p value=.../>}). Supported attributes are as follows:
+ * </p>
+ * <ul>
+ * <li>{@code columns}: the column names separated by comma (required)</li>
+ * <li>{@code items}: the list of key objects (required)</li>
+ * <li>{@code properties}: the property names of key object separated by comma (default is same as {@code columns}).
+ * If there is only one column and this attribute is omitted, an item itself is bound</li>
+ * <li>{@code rowValue}: whether use row value expressions (default is decided by {@code _databaseId})</li>
+ * <li>{@code chunkSize}: the maximum number of keys per one IN list (default is {@value #DEFAULT_CHUNK_SIZE})</li>
+ * <li>{@code padding}: whether pad the number of keys to the power of two by repeating the last key for keeping the
+ * number of variations of SQL small (default is {@code true})</li>
+ * </ul>
+ *
+ * @since 1.3.3
+ */
+public class RowValueInDirective implements TemplateDirectiveModel {
+  public static final String DEFAULT_KEY = "rowIn";
+
+  /**
+   * The default maximum number of keys per one IN list.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+  /**
+   * The database ids that support row value expressions in IN predicate.
+   */
+  private static final Set<String> ROW_VALUE_SUPPORTED_DATABASE_IDS = Collections.unmodifiableSet(
+      new HashSet<>(Arrays.asList("db2", "h2", "hsqldb", "mariadb", "mysql", "oracle", "postgresql", "sqlite")));
+
+  @Override
+  public void execute(Environment env, Map params, TemplateModel[] loopVars, TemplateDirectiveBody body)
+      throws TemplateException, IOException {
+    String[] columns = splitNames(getRequiredString(params, "columns"));
+    String[] properties = params.containsKey("properties") ? splitNames(getRequiredString(params, "properties"))
+        : columns;
+    if (properties.length != columns.length) {
+      throw new TemplateModelException("The number of 'properties' should be same as the number of 'columns'.");
+    }
+    boolean bindItself = columns.length == 1 && !params.containsKey("properties");
+    boolean rowValue = params.containsKey("rowValue") ? getBoolean(params, "rowValue")
+        : isRowValueSupported(env);
+    int chunkSize = params.containsKey("chunkSize") ? getInt(params, "chunkSize") : DEFAULT_CHUNK_SIZE;
+    if (chunkSize <= 0) {
+      throw new TemplateModelException("The 'chunkSize' should be greater than zero.");
+    }
+    boolean padding = !params.containsKey("padding") || getBoolean(params, "padding");
+
+    List<?> items = toList(params.get("items"));
+    Writer out = env.getOut();
+    if (items.isEmpty()) {
+      out.write("(1 = 0)");
+      return;
+    }
+
+    int chunks = (items.size() + chunkSize - 1) / chunkSize;
+    if (chunks > 1) {
+      out.write('(');
+    }
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      int from = chunk * chunkSize;
+      int to = Math.min(from + chunkSize, items.size());
+      int size = padding ? Math.min(paddedSize(to - from), chunkSize) : to - from;
+      if (chunk > 0) {
+        out.write(" OR ");
+      }
+      if (rowValue) {
+        writeRowValueChunk(env, out, columns, properties, bindItself, items, from, to, size);
+      } else {
+        writeOrGroupsChunk(env, out, columns, properties, bindItself, items, from, to, size);
+      }
+    }
+    if (chunks > 1) {
+      out.write(')');
+    }
+  }
+
+  private static void writeRowValueChunk(Environment env, Writer out, String[] columns, String[] properties,
+      boolean bindItself, List<?> items, int from, int to, int size) throws IOException, TemplateModelException {
+    if (columns.length > 1) {
+      out.write('(');
+    }
+    writeNames(out, columns);
+    if (columns.length > 1) {
+      out.write(')');
+    }
+    out.write(" IN (");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        out.write(", ");
+      }
+      // Pads by repeating the last key
+      Object item = items.get(Math.min(from + i, to - 1));
+      if (columns.length > 1) {
+        out.write('(');
+      }
+      for (int j = 0; j < properties.length; j++) {
+        if (j > 0) {
+          out.write(", ");
+        }
+        writeParam(env, out, getValue(item, properties[j], bindItself));
+      }
+      if (columns.length > 1) {
+        out.write(')');
+      }
+    }
+    out.write(')');
+  }
+
+  private static void writeOrGroupsChunk(Environment env, Writer out, String[] columns, String[] properties,
+      boolean bindItself, List<?> items, int from, int to, int size) throws IOException, TemplateModelException {
+    out.write('(');
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        out.write(" OR ");
+      }
+      Object item = items.get(Math.min(from + i, to - 1));
+      out.write('(');
+      for (int j = 0; j < properties.length; j++) {
+        if (j > 0) {
+          out.write(" AND ");
+        }
+        out.write(columns[j]);
+        out.write(" = ");
+        writeParam(env, out, getValue(item, properties[j], bindItself));
+      }
+      out.write(')');
+    }
+    out.write(')');
+  }
+
+  private static void writeNames(Writer out, String[] names) throws IOException {
+    for (int i = 0; i < names.length; i++) {
+      if (i > 0) {
+        out.write(", ");
+      }
+      out.write(names[i]);
+    }
+  }
+
+  private static void writeParam(Environment env, Writer out, Object value) throws IOException, TemplateModelException {
+    out.write(MyBatisParamDirective.toParamExpression(MyBatisParamDirective.addGeneratedParam(env, value), value, null,
+        null));
+  }
+
+  static Object getValue(Object item, String property, boolean bindItself) {
+    if (bindItself || item == null) {
+      return item;
+    }
+    MetaObject metaObject = SystemMetaObject.forObject(item);
+    return metaObject.getValue(property);
+  }
+
+  private static int paddedSize(int size) {
+    int paddedSize = Integer.highestOneBit(size);
+    return paddedSize == size ? size : paddedSize << 1;
+  }
+
+  private static boolean isRowValueSupported(Environment env) throws TemplateModelException {
+    String databaseId = MyBatisParamDirective.getDatabaseId(env);
+    return databaseId != null && ROW_VALUE_SUPPORTED_DATABASE_IDS.contains(databaseId);
+  }
+
+  static List<?> toList(Object itemsObject) throws TemplateModelException {
+    if (itemsObject == null) {
+      throw new TemplateModelException("The 'items' attribute is required.");
+    }
+    Object items = DeepUnwrap.unwrap((TemplateModel) itemsObject);
+    if (items instanceof List) {
+      return (List<?>) items;
+    } else if (items instanceof Iterable) {
+      List<Object> list = new ArrayList<>();
+      ((Iterable<?>) items).forEach(list::add);
+      return list;
+    } else if (items instanceof Iterator) {
+      List<Object> list = new ArrayList<>();
+      ((Iterator<?>) items).forEachRemaining(list::add);
+      return list;
+    } else if (items instanceof Stream) {
+      return ((Stream<?>) items).collect(Collectors.toList());
+    } else if (items instanceof Object[]) {
+      return Arrays.asList((Object[]) items);
+    }
+    throw new TemplateModelException(
+        String.format("The 'items' attribute should be a list. type:[%s]", items.getClass().getName()));
+  }
+
+  static String[] splitNames(String names) throws TemplateModelException {
+    String[] tokens = names.split(",");
+    for (int i = 0; i < tokens.length; i++) {
+      tokens[i] = tokens[i].trim();
+      if (tokens[i].isEmpty()) {
+        throw new TemplateModelException(String.format("The blank name is included. names:[%s]", names));
+      }
+    }
+    return tokens;
+  }
+
+  static String getRequiredString(Map params, String name) throws TemplateModelException {
+    Object value = params.get(name);
+    if (!(value instanceof TemplateScalarModel)) {
+      throw new TemplateModelException(String.format("The '%s' attribute is required as string.", name));
+    }
+    return ((TemplateScalarModel) value).getAsString();
+  }
+
+  private static boolean getBoolean(Map params, String name) throws TemplateModelException {
+    Object value = params.get(name);
+    if (!(value instanceof TemplateBooleanModel)) {
+      throw new TemplateModelException(String.format("The '%s' attribute should be a boolean.", name));
+    }
+    return ((TemplateBooleanModel) value).getAsBoolean();
+  }
+
+  static int getInt(Map params, String name) throws TemplateModelException {
+    Object value = params.get(name);
+    if (!(value instanceof TemplateNumberModel)) {
+      throw new TemplateModelException(String.format("The '%s' attribute should be a number.", name));
+    }
+    return ((TemplateNumberModel) value).getAsNumber().intValue();
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import freemarker.core.Environment;
+import freemarker.template.TemplateDirectiveBody;
+import freemarker.template.TemplateDirectiveModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+
+/**
+ * Custom FreeMarker directive for generating the row values of multi-row {@code VALUES} clause. It is the
+ * replacement of {@code <#list>} for the large bulk inserts:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ *     INSERT INTO names (firstName, lastName) VALUES &lt;@rows items=names properties="firstName, lastName"/&gt;
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * will be translated into {@code (#{_p0}, #{_p1}), (#{_p2}, #{_p3})}. All values are bound via generated parameters
+ * (same as {@code <@p value=.../>}). When the number of items reaches the {@code parallelThreshold}, the items are
+ * split into chunks and they are rendered on the common fork-join pool, then concatenated in order. The parameter
+ * names are numbered by the position of items, so the result is identical with the sequential rendering. The items
+ * should not be modified during the rendering, because the properties are read from multiple threads. The maximum
+ * render time (see {@link FreeMarkerLanguageDriverConfig#getMaxRenderTimeMillis()}) is checked before each chunk, so
+ * the remaining chunks are not rendered after it is exceeded. The directive does not accept a body. Supported
+ * attributes are as follows:
+ * </p>
+ * <ul>
+ * <li>{@code items}: the list of row objects (required)</li>
+ * <li>{@code properties}: the property names of row object separated by comma. If it is omitted, an item itself is
+ * bound</li>
+ * <li>{@code parallelThreshold}: the minimum number of items that are rendered in parallel (default is
+ * {@value #DEFAULT_PARALLEL_THRESHOLD})</li>
+ * <li>{@code chunkSize}: the number of items per chunk of parallel rendering (default is
+ * {@value #DEFAULT_CHUNK_SIZE})</li>
+ * </ul>
+ *
+ * @since 1.3.3
+ */
+public class RowsDirective implements TemplateDirectiveModel {
+  public static final String DEFAULT_KEY = "rows";
+
+  /**
+   * The default minimum number of items that are rendered in parallel.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
+
+  /**
+   * The default number of items per chunk of parallel rendering.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 2000;
+
+  @Override
+  public void execute(Environment env, Map params, TemplateModel[] loopVars, TemplateDirectiveBody body)
+      throws TemplateException, IOException {
+    if (body != null) {
+      throw new TemplateModelException("The @rows directive does not accept a body.");
+    }
+    boolean bindItself = !params.containsKey("properties");
+    String[] properties = bindItself ? new String[1]
+        : RowValueInDirective.splitNames(RowValueInDirective.getRequiredString(params, "properties"));
+    int parallelThreshold = params.containsKey("parallelThreshold")
+        ? RowValueInDirective.getInt(params, "parallelThreshold") : DEFAULT_PARALLEL_THRESHOLD;
+    int chunkSize = params.containsKey("chunkSize") ? RowValueInDirective.getInt(params, "chunkSize")
+        : DEFAULT_CHUNK_SIZE;
+    if (chunkSize <= 0) {
+      throw new TemplateModelException("The 'chunkSize' should be greater than zero.");
+    }
+
+    List<?> items = RowValueInDirective.toList(params.get("items"));
+    if (items.isEmpty()) {
+      throw new TemplateModelException("The 'items' attribute should not be empty.");
+    }
+
+    List generatedParams = MyBatisParamDirective.getGeneratedParams(env);
+    int firstParamIndex = generatedParams.size();
+    // All chunks are rendered before their parameters are added
+    RenderLimits.checkBinds(generatedParams, items.size() * properties.length);
+    RenderLimits.Budget budget = RenderLimits.getBudget(generatedParams);
+    int chunks = (items.size() + chunkSize - 1) / chunkSize;
+    IntStream chunkIndexes = IntStream.range(0, chunks);
+    if (chunks > 1 && items.size() >= parallelThreshold) {
+      // The parallel stream runs on the common fork-join pool, and collects the chunks in order
+      chunkIndexes = chunkIndexes.parallel();
+    }
+    List<Chunk> renderedChunks;
+    try {
+      renderedChunks = chunkIndexes.mapToObj(chunk -> renderChunk(items, properties, bindItself, chunk * chunkSize,
+          Math.min((chunk + 1) * chunkSize, items.size()), firstParamIndex, budget)).collect(Collectors.toList());
+    } catch (ChunkException e) {
+      throw e.getCause();
+    }
+
+    Writer out = env.getOut();
+    for (Chunk chunk : renderedChunks) {
+      out.append(chunk.text);
+      for (Object value : chunk.values) {
+        generatedParams.add(value);
+      }
+    }
+  }
+
+  private static Chunk renderChunk(List<?> items, String[] properties, boolean bindItself, int from, int to,
+      int firstParamIndex, RenderLimits.Budget budget) {
+    if (budget != null) {
+      // The deadline is fixed at the start of rendering, so it can be checked from any thread
+      budget.checkRenderTime();
+    }
+    Object[] values = new Object[(to - from) * properties.length];
+    StringBuilder text = new StringBuilder(values.length * 16);
+    int paramIndex = firstParamIndex + from * properties.length;
+    try {
+      for (int i = from; i < to; i++) {
+        if (i > 0) {
+          text.append(", ");
+        }
+        text.append('(');
+        Object item = items.get(i);
+        for (int j = 0; j < properties.length; j++) {
+          if (j > 0) {
+            text.append(", ");
+          }
+          Object value = RowValueInDirective.getValue(item, properties[j], bindItself);
+          values[(i - from) * properties.length + j] = value;
+          text.append(MyBatisParamDirective.toParamExpression("_p" + paramIndex++, value, null, null));
+        }
+        text.append(')');
+      }
+    } catch (TemplateModelException e) {
+      throw new ChunkException(e);
+    }
+    return new Chunk(text, values);
+  }
+
+  /**
+   * The rendered text and the values of generated parameters of a chunk.
+   */
+  private static class Chunk {
+    private final CharSequence text;
+    private final Object[] values;
+
+    Chunk(CharSequence text, Object[] values) {
+      this.text = text;
+      this.values = values;
+    }
+  }
+
+  /**
+   * The exception for passing the error of a chunk through the stream.
+   */
+  private static class ChunkException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    ChunkException(TemplateModelException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized TemplateModelException getCause() {
+      return (TemplateModelException) super.getCause();
+    }
+  }
+
+}
@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+/**
+ * Custom FreeMarker directive that works as same as the {@code <set>} element of MyBatis XML. It adds the {@code SET}
+ * keyword only when the body is not blank, and removes the leading/trailing comma:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ *     UPDATE names
+ *     &lt;@set&gt;
+ *       &lt;#if firstName??&gt;firstName = &lt;@p name="firstName"/&gt;,&lt;/#if&gt;
+ *       &lt;#if lastName??&gt;lastName = &lt;@p name="lastName"/&gt;,&lt;/#if&gt;
+ *     &lt;/@set&gt;
+ *     WHERE id = &lt;@p name="id"/&gt;
+ * </pre>
+ *
+ * </blockquote>
+ *
+ * @since 1.3.3
+ */
+public class SetDirective extends TrimDirective {
+  public static final String DEFAULT_KEY = "set";
+
+  public SetDirective() {
+    super("SET", ",", null, ",");
+  }
+}
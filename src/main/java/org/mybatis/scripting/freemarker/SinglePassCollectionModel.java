@@ -0,0 +1,152 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import freemarker.core.Environment;
+import freemarker.ext.util.WrapperTemplateModel;
+import freemarker.template.AdapterTemplateModel;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateModelIterator;
+
+/**
+ * The single-pass {@link TemplateCollectionModel} for {@link Iterator}, {@link Stream} and {@link Iterable} (that is
+ * not a {@link Collection}, such as MyBatis {@code Cursor}). The elements are consumed directly while rendering, so
+ * there is no need to collect them into a {@link java.util.List} before calling a mapper method.
+ * <p>
+ * It can be listed only once. Checking the content (e.g. {@code ?has_content}) before listing is allowed, but listing
+ * it again throws an exception. Because a variable is wrapped on each access, the model is shared per source object
+ * within a template processing (see {@link #of(Object, ObjectWrapper)}).
+ * </p>
+ *
+ * @since 1.3.3
+ */
+public class SinglePassCollectionModel implements TemplateCollectionModel, AdapterTemplateModel, WrapperTemplateModel {
+  private static final Object MODELS_KEY = new Object();
+
+  private final Object source;
+  private final ObjectWrapper wrapper;
+  private Iterator<?> iterator;
+  private boolean consumed;
+
+  /**
+   * Constructor.
+   *
+   * @param source
+   *          an {@link Iterator}, {@link Stream} or {@link Iterable}
+   * @param wrapper
+   *          the object wrapper for elements
+   */
+  public SinglePassCollectionModel(Object source, ObjectWrapper wrapper) {
+    this.source = source;
+    this.wrapper = wrapper;
+  }
+
+  /**
+   * Get the model for the source object. Within a template processing, the same model is returned for the same source
+   * object, so that the consumed state is kept.
+   *
+   * @param source
+   *          an {@link Iterator}, {@link Stream} or {@link Iterable}
+   * @param wrapper
+   *          the object wrapper for elements
+   *
+   * @return the model
+   */
+  public static SinglePassCollectionModel of(Object source, ObjectWrapper wrapper) {
+    Environment env = Environment.getCurrentEnvironment();
+    if (env == null) {
+      return new SinglePassCollectionModel(source, wrapper);
+    }
+    Map<Object, SinglePassCollectionModel> models = (Map<Object, SinglePassCollectionModel>) env
+        .getCustomState(MODELS_KEY);
+    if (models == null) {
+      models = new IdentityHashMap<>();
+      env.setCustomState(MODELS_KEY, models);
+    }
+    return models.computeIfAbsent(source, key -> new SinglePassCollectionModel(key, wrapper));
+  }
+
+  /**
+   * Return whether the object can be wrapped by this model.
+   *
+   * @param object
+   *          a target object
+   *
+   * @return {@code true} if it is an {@link Iterator}, {@link Stream} or {@link Iterable} that is not a
+   *         {@link Collection} (or {@link Path})
+   */
+  public static boolean isSupported(Object object) {
+    return object instanceof Iterator || object instanceof Stream
+        || object instanceof Iterable && !(object instanceof Collection) && !(object instanceof Path);
+  }
+
+  @Override
+  public TemplateModelIterator iterator() throws TemplateModelException {
+    if (consumed) {
+      throw new TemplateModelException(String.format(
+          "The value of type %s is a single-pass collection, so it can be listed only once in a template.",
+          source.getClass().getName()));
+    }
+    if (iterator == null) {
+      iterator = open();
+    }
+    return new TemplateModelIterator() {
+      @Override
+      public TemplateModel next() throws TemplateModelException {
+        consumed = true;
+        if (!iterator.hasNext()) {
+          throw new TemplateModelException("The collection has no more elements.");
+        }
+        return wrapper.wrap(iterator.next());
+      }
+
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+    };
+  }
+
+  private Iterator<?> open() {
+    if (source instanceof Iterator) {
+      return (Iterator<?>) source;
+    } else if (source instanceof Stream) {
+      return ((Stream<?>) source).iterator();
+    }
+    return ((Iterable<?>) source).iterator();
+  }
+
+  @Override
+  public Object getAdaptedObject(Class<?> hint) {
+    return source;
+  }
+
+  @Override
+  public Object getWrappedObject() {
+    return source;
+  }
+
+}
@@ -0,0 +1,191 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * The output buffer of rendered SQL that consists of segments. The characters are written into fixed size blocks, so
+ * they are not copied when the buffer grows, and the long strings (such as the static text of compiled templates and
+ * the chunks of {@code <@rows>}) are kept as shared segments without copying. The {@link String} of the whole SQL is
+ * built by {@link #toString()}, that appends the segments to a {@link StringBuilder} of the exact length (so it never
+ * grows), and is cached until the next write. When a budget of rendering is specified, the length is checked before
+ * each write.
+ *
+ * @since 1.3.3
+ */
+final class SqlBuffer extends Writer {
+
+  private static final int BLOCK_SIZE = 1024;
+
+  /**
+   * The minimum length of string that is kept as a shared segment.
+   */
+  private static final int SHARED_MIN_LENGTH = 64;
+
+  private Object[] segments = new Object[16];
+  private int[] segmentLengths = new int[16];
+  private int segmentCount;
+  private char[] block;
+  private int length;
+  private String text;
+  private final RenderLimits.Budget budget;
+
+  SqlBuffer() {
+    this(null);
+  }
+
+  SqlBuffer(RenderLimits.Budget budget) {
+    this.budget = budget;
+  }
+
+  @Override
+  public void write(int c) {
+    checkLength(1);
+    if (block == null || segmentLengths[segmentCount - 1] == BLOCK_SIZE) {
+      addBlock();
+    }
+    block[segmentLengths[segmentCount - 1]++] = (char) c;
+    length++;
+    text = null;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) {
+    checkLength(len);
+    int offset = off;
+    int remaining = len;
+    while (remaining > 0) {
+      int count = reserve(remaining);
+      System.arraycopy(cbuf, offset, block, segmentLengths[segmentCount - 1], count);
+      segmentLengths[segmentCount - 1] += count;
+      offset += count;
+      remaining -= count;
+    }
+    length += len;
+    text = null;
+  }
+
+  @Override
+  public void write(String str, int off, int len) {
+    checkLength(len);
+    if (off == 0 && len == str.length() && len >= SHARED_MIN_LENGTH) {
+      // The string is immutable, so it can be shared
+      addSegment(str, len);
+      block = null;
+    } else {
+      int offset = off;
+      int remaining = len;
+      while (remaining > 0) {
+        int count = reserve(remaining);
+        int blockLength = segmentLengths[segmentCount - 1];
+        str.getChars(offset, offset + count, block, blockLength);
+        segmentLengths[segmentCount - 1] = blockLength + count;
+        offset += count;
+        remaining -= count;
+      }
+    }
+    length += len;
+    text = null;
+  }
+
+  @Override
+  public void write(String str) {
+    write(str, 0, str.length());
+  }
+
+  @Override
+  public SqlBuffer append(CharSequence csq) {
+    write(String.valueOf(csq));
+    return this;
+  }
+
+  /**
+   * Get the number of written characters.
+   *
+   * @return the number of written characters
+   */
+  int length() {
+    return length;
+  }
+
+  @Override
+  public void flush() {
+    // NOP
+  }
+
+  @Override
+  public void close() {
+    // NOP
+  }
+
+  @Override
+  public String toString() {
+    if (text != null) {
+      return text;
+    }
+    if (segmentCount == 1 && segments[0] instanceof String) {
+      text = (String) segments[0];
+      return text;
+    }
+    // The builder is right-sized, so it never grows while the segments are appended
+    StringBuilder builder = new StringBuilder(length);
+    for (int i = 0; i < segmentCount; i++) {
+      Object segment = segments[i];
+      if (segment instanceof String) {
+        builder.append((String) segment);
+      } else {
+        builder.append((char[]) segment, 0, segmentLengths[i]);
+      }
+    }
+    text = builder.toString();
+    return text;
+  }
+
+  private void checkLength(int len) {
+    if (budget != null) {
+      budget.checkOutputChars(length + len);
+    }
+  }
+
+  /**
+   * Reserve the space of current block.
+   *
+   * @return the number of characters that can be written into current block
+   */
+  private int reserve(int size) {
+    if (block == null || segmentLengths[segmentCount - 1] == BLOCK_SIZE) {
+      addBlock();
+    }
+    return Math.min(size, BLOCK_SIZE - segmentLengths[segmentCount - 1]);
+  }
+
+  private void addBlock() {
+    block = new char[BLOCK_SIZE];
+    addSegment(block, 0);
+  }
+
+  private void addSegment(Object segment, int segmentLength) {
+    if (segmentCount == segments.length) {
+      segments = Arrays.copyOf(segments, segmentCount * 2);
+      segmentLengths = Arrays.copyOf(segmentLengths, segmentCount * 2);
+    }
+    segments[segmentCount] = segment;
+    segmentLengths[segmentCount++] = segmentLength;
+  }
+
+}
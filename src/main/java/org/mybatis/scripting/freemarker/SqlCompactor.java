@@ -0,0 +1,247 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+
+import freemarker.template.Template;
+
+/**
+ * Compacts the static text of a parsed template. The whitespace runs are collapsed into a single space (or a single
+ * line break at the beginning of a text that follows an interpolation or a directive), and the SQL comments are
+ * dropped.
+ * <p>
+ * The text is scanned as SQL, so string literals, quoted identifiers, optimizer hints ({@code /*+ ...}) and MySQL
+ * executable comments ({@code /*! ...}) are kept as they are. When a construct whose meaning depends on the dialect is
+ * found (backslash escapes in literals, {@code --} without a following whitespace, nested block comments, dollar
+ * quoting, Oracle alternative quoting) or a literal spans dynamic content, the rest of the template is kept as it is.
+ * </p>
+ * <p>
+ * The template tree is modified in place, and a template file is shared by the statements that refer to it through
+ * the template cache of the language driver. So the compaction of a template runs only once (see
+ * {@link TemplateTree#transformOnce}) before it is used by a SQL source, and it is enabled or disabled per language
+ * driver (that owns the template cache). Nothing is compacted when the template tree of FreeMarker is not supported.
+ * </p>
+ *
+ * @since 1.3.3
+ */
+final class SqlCompactor {
+
+  /**
+   * The nodes whose nested text is written to the output as it is.
+   */
+  private static final Set<TemplateTree.Kind> CONTAINERS = EnumSet.of(TemplateTree.Kind.SEQUENCE,
+      TemplateTree.Kind.IF, TemplateTree.Kind.BRANCH, TemplateTree.Kind.LIST, TemplateTree.Kind.LIST_WITH_ELSE,
+      TemplateTree.Kind.LIST_ELSE, TemplateTree.Kind.ITEMS, TemplateTree.Kind.SEP, TemplateTree.Kind.DIRECTIVE_CALL);
+
+  /**
+   * The nodes that can appear inside a string literal (e.g. {@code '%${name}%'}).
+   */
+  private static final Set<TemplateTree.Kind> INLINE_NODES = EnumSet.of(TemplateTree.Kind.INTERPOLATION,
+      TemplateTree.Kind.NUMERICAL_INTERPOLATION, TemplateTree.Kind.DIRECTIVE_CALL, TemplateTree.Kind.COMMENT);
+
+  /**
+   * The quote character of the literal that is not closed yet, or {@code 0}.
+   */
+  private char quote;
+
+  private boolean stopped;
+
+  /**
+   * Whether a node has been written before the current node.
+   */
+  private boolean started;
+
+  private SqlCompactor() {
+    // NOP
+  }
+
+  /**
+   * Compact the static text of template.
+   *
+   * @param template
+   *          the template that is not shared with other database ids
+   *
+   * @return the compacted template (a new template is created only when the whole template is a static text)
+   *
+   * @throws IOException
+   *           if the compacted template cannot be created
+   */
+  static Template compact(Template template) throws IOException {
+    if (!TemplateTree.isSupported()) {
+      return template;
+    }
+    TemplateTree root = TemplateTree.root(template);
+    if (root != null && root.kind() == TemplateTree.Kind.TEXT) {
+      // The root node cannot be replaced, so the shared template is kept as it is
+      String source = root.text();
+      String compacted = source == null ? null : new SqlCompactor().compactText(source, false);
+      if (compacted == null || compacted.equals(source)) {
+        return template;
+      }
+      return new Template(template.getName(), compacted, template.getConfiguration());
+    }
+    TemplateTree.transformOnce(template, "compacted", node -> new SqlCompactor().compactChildren(node));
+    return template;
+  }
+
+  private void compactChildren(TemplateTree node) {
+    if (!CONTAINERS.contains(node.kind())) {
+      return;
+    }
+    for (int i = 0; i < node.childCount() && !stopped; i++) {
+      TemplateTree child = node.child(i);
+      TemplateTree.Kind kind = child.kind();
+      if (kind == TemplateTree.Kind.TEXT) {
+        String source = child.text();
+        String compacted = source == null ? null : compactText(source, started);
+        if (compacted == null) {
+          stopped = true;
+        } else if (!compacted.equals(source)) {
+          node.setChild(i, TemplateTree.text(compacted));
+        }
+      } else if (quote != 0) {
+        // Only the interpolations and the calls without body can continue a literal
+        if (child.childCount() > 0 || !INLINE_NODES.contains(kind)) {
+          stopped = true;
+        }
+      } else if (CONTAINERS.contains(kind)) {
+        compactChildren(child);
+      } else if (child.childCount() > 0) {
+        // The output of unknown node cannot be scanned (e.g. #switch, #attempt)
+        stopped = true;
+      }
+      started = true;
+    }
+    if (quote != 0) {
+      // The literal is not closed in the same sequence of nodes
+      stopped = true;
+    }
+  }
+
+  /**
+   * Compact a static text.
+   *
+   * @param source
+   *          the static text
+   * @param afterDynamic
+   *          whether the text follows an interpolation or a directive
+   *
+   * @return the compacted text, or {@code null} if the text cannot be compacted safely
+   */
+  private String compactText(String source, boolean afterDynamic) {
+    int length = source.length();
+    StringBuilder result = new StringBuilder(length);
+    boolean space = false;
+    boolean lineBreak = false;
+    int i = 0;
+    while (i < length) {
+      char c = source.charAt(i);
+      if (quote != 0) {
+        if (c == '\\' && quote == '\'') {
+          // MySQL and PostgreSQL (E'...') treat backslash as escape character, but the others do not
+          return null;
+        }
+        result.append(c);
+        if (c == quote) {
+          if (i + 1 < length && source.charAt(i + 1) == quote) {
+            result.append(c);
+            i++;
+          } else {
+            quote = 0;
+          }
+        }
+        i++;
+        continue;
+      }
+      if (Character.isWhitespace(c)) {
+        space = true;
+        // The line break is kept at the beginning, because the preceding dynamic text may end with a line comment
+        lineBreak |= afterDynamic && result.length() == 0 && (c == '\n' || c == '\r');
+        i++;
+        continue;
+      }
+      int end;
+      if (c == '-' && i + 1 < length && source.charAt(i + 1) == '-') {
+        end = source.indexOf('\n', i);
+        if (i + 2 == length || !Character.isWhitespace(source.charAt(i + 2)) || end == -1) {
+          // MySQL requires whitespace after '--', and the comment that continues to dynamic text cannot be dropped
+          return null;
+        }
+        space = true;
+        i = end;
+        continue;
+      }
+      if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+        end = source.indexOf("*/", i + 2);
+        if (end == -1) {
+          return null;
+        }
+        end += 2;
+        char marker = i + 2 < end - 2 ? source.charAt(i + 2) : ' ';
+        if (marker != '+' && marker != '!') {
+          int nested = source.indexOf("/*", i + 2);
+          if (nested != -1 && nested < end - 2) {
+            // A nested comment is supported by some databases only
+            return null;
+          }
+          space = true;
+          i = end;
+          continue;
+        }
+        appendSpace(result, space, lineBreak);
+        space = false;
+        lineBreak = false;
+        result.append(source, i, end);
+        i = end;
+        continue;
+      }
+      if (c == '$') {
+        end = i + 1;
+        while (end < length && (Character.isLetterOrDigit(source.charAt(end)) || source.charAt(end) == '_')) {
+          end++;
+        }
+        if (end < length && source.charAt(end) == '$') {
+          // PostgreSQL dollar quoting
+          return null;
+        }
+      }
+      if (c == '\'' || c == '"' || c == '`') {
+        if (c == '\'' && i > 0 && (source.charAt(i - 1) == 'q' || source.charAt(i - 1) == 'Q')) {
+          // Oracle alternative quoting (e.g. q'[...]')
+          return null;
+        }
+        quote = c;
+      }
+      appendSpace(result, space, lineBreak);
+      space = false;
+      lineBreak = false;
+      result.append(c);
+      i++;
+    }
+    appendSpace(result, space, lineBreak);
+    return result.toString();
+  }
+
+  private static void appendSpace(StringBuilder result, boolean space, boolean lineBreak) {
+    if (space) {
+      result.append(lineBreak ? '\n' : ' ');
+    }
+  }
+
+}
@@ -0,0 +1,107 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.core.Environment;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+/**
+ * The auto-imported and auto-included library templates that loaded once per FreeMarker configuration. They are
+ * applied to the processing environment directly, so there is no template cache lookup on each processing.
+ *
+ * @see FreeMarkerLanguageDriverConfig#getAutoImports()
+ * @see FreeMarkerLanguageDriverConfig#getAutoIncludes()
+ *
+ * @since 1.3.3
+ */
+final class TemplateLibraries {
+  private static final String CUSTOM_ATTRIBUTE_KEY = TemplateLibraries.class.getName();
+
+  private final Map<String, Template> imports;
+  private final List<Template> includes;
+
+  private TemplateLibraries(Map<String, Template> imports, List<Template> includes) {
+    this.imports = imports;
+    this.includes = includes;
+  }
+
+  /**
+   * Load the library templates and register them into the FreeMarker configuration.
+   *
+   * @param cfg
+   *          the FreeMarker configuration
+   * @param autoImports
+   *          the template names of auto-imported libraries (key is namespace)
+   * @param autoIncludes
+   *          the template names of auto-included libraries
+   */
+  static void register(Configuration cfg, Map<String, String> autoImports, List<String> autoIncludes) {
+    if (autoImports.isEmpty() && autoIncludes.isEmpty()) {
+      return;
+    }
+    Map<String, Template> imports = new LinkedHashMap<>();
+    autoImports.forEach((namespace, name) -> imports.put(namespace, load(cfg, name)));
+    List<Template> includes = new ArrayList<>();
+    autoIncludes.forEach(name -> includes.add(load(cfg, name)));
+    cfg.setCustomAttribute(CUSTOM_ATTRIBUTE_KEY, new TemplateLibraries(Collections.unmodifiableMap(imports),
+        Collections.unmodifiableList(includes)));
+  }
+
+  /**
+   * Get the library templates that registered into the FreeMarker configuration.
+   *
+   * @param cfg
+   *          the FreeMarker configuration
+   *
+   * @return the library templates, or {@code null} if not registered
+   */
+  static TemplateLibraries of(Configuration cfg) {
+    return (TemplateLibraries) cfg.getCustomAttribute(CUSTOM_ATTRIBUTE_KEY);
+  }
+
+  /**
+   * Import and include the library templates into the processing environment. It should be called before processing.
+   *
+   * @param env
+   *          the processing environment
+   */
+  void apply(Environment env) throws TemplateException, IOException {
+    for (Map.Entry<String, Template> entry : imports.entrySet()) {
+      env.importLib(entry.getValue(), entry.getKey());
+    }
+    for (Template include : includes) {
+      env.include(include);
+    }
+  }
+
+  private static Template load(Configuration cfg, String name) {
+    try {
+      return cfg.getTemplate(name);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to load FreeMarker library template. name[%s]", name), e);
+    }
+  }
+
+}
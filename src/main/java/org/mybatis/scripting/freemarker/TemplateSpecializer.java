@@ -0,0 +1,233 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.EnumSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import freemarker.template.Template;
+
+/**
+ * Specializes a parsed template for the database id, that is fixed per MyBatis configuration.
+ * <p>
+ * The {@code #if}/{@code #elseif}/{@code #else} chains that only compare {@code _databaseId} with string literals (e.g.
+ * {@code <#if _databaseId == "h2">}) are evaluated once, and replaced with the live branch in the template tree. The
+ * other conditions are kept as they are, so a chain that contains them is never pruned. The template is specialized
+ * only once (see {@link TemplateTree#transformOnce}), and nothing is done when the template tree of FreeMarker is not
+ * supported.
+ * It is applied only when {@link FreeMarkerLanguageDriverConfig#isTemplateSpecializationEnabled()} is {@code true}.
+ * </p>
+ * <p>
+ * The {@code _databaseId} variable is reserved in the data context, so a parameter does not shadow it. A template that
+ * declares it (e.g. {@code #assign}, a loop variable or a macro parameter) is not specialized, and
+ * {@link FreeMarkerSqlSource} checks that the variable is not shadowed at rendering (e.g. by an overridden
+ * {@code preProcessDataContext}) for the specialized template.
+ * </p>
+ *
+ * @since 1.3.3
+ */
+final class TemplateSpecializer {
+
+  private static final String DATABASE_ID_OPERAND = "(?:_databaseId|\"\\$\\{_databaseId}\")";
+
+  private static final String LITERAL_OPERAND = "\"([\\w.\\-]*)\"";
+
+  private static final Pattern CONDITION_PATTERN = Pattern.compile("#(?:if|elseif) " + DATABASE_ID_OPERAND
+      + " (==|=|!=) " + LITERAL_OPERAND);
+
+  private static final Pattern REVERSED_CONDITION_PATTERN = Pattern.compile("#(?:if|elseif) " + LITERAL_OPERAND
+      + " (==|=|!=) " + DATABASE_ID_OPERAND);
+
+  private static final String ELSE_DESCRIPTION = "#else";
+
+  private static final Pattern DATABASE_ID_PATTERN = Pattern.compile("(?<![\\w$])_databaseId(?![\\w$])");
+
+  private static final Pattern DATABASE_ID_PARAM_PATTERN = Pattern.compile("\\s_databaseId=");
+
+  /**
+   * The nodes that may declare a variable.
+   */
+  private static final EnumSet<TemplateTree.Kind> DECLARING_NODES = EnumSet.of(TemplateTree.Kind.ASSIGNMENT,
+      TemplateTree.Kind.LIST, TemplateTree.Kind.ITEMS, TemplateTree.Kind.OTHER);
+
+  private static final String SPECIALIZED_ATTRIBUTE = TemplateSpecializer.class.getName() + ".databaseId";
+
+  private TemplateSpecializer() {
+    // NOP
+  }
+
+  /**
+   * Prune the dead branches that depend on the database id.
+   *
+   * @param template
+   *          the template that is not shared with other database ids
+   * @param databaseId
+   *          the database id of MyBatis configuration (can be null)
+   */
+  static void specialize(Template template, String databaseId) {
+    String actualDatabaseId = databaseId == null ? "" : databaseId;
+    TemplateTree.transformOnce(template, "specialized", root -> {
+      if (!declaresDatabaseId(root) && specializeChildren(root, actualDatabaseId)) {
+        template.setCustomAttribute(SPECIALIZED_ATTRIBUTE, actualDatabaseId);
+      }
+    });
+  }
+
+  /**
+   * Get the database id that the template is specialized for.
+   *
+   * @param template
+   *          the template
+   *
+   * @return the database id (empty if the database id of MyBatis configuration is null), or {@code null} if no branch
+   *         is pruned
+   */
+  static String getSpecializedDatabaseId(Template template) {
+    return (String) template.getCustomAttribute(SPECIALIZED_ATTRIBUTE);
+  }
+
+  /**
+   * Whether the template may declare the {@code _databaseId} variable, that would shadow the data context.
+   */
+  private static boolean declaresDatabaseId(TemplateTree node) {
+    if (DECLARING_NODES.contains(node.kind()) && DATABASE_ID_PATTERN.matcher(node.description()).find()
+        || node.kind() == TemplateTree.Kind.DIRECTIVE_CALL
+            && DATABASE_ID_PARAM_PATTERN.matcher(node.description()).find()) {
+      return true;
+    }
+    for (int i = 0; i < node.childCount(); i++) {
+      if (declaresDatabaseId(node.child(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether the template consists of static text only (after the specialization).
+   *
+   * @param template
+   *          the template
+   *
+   * @return {@code true} if the rendered text does not depend on the data model
+   */
+  static boolean isStatic(Template template) {
+    if (!TemplateTree.isSupported()) {
+      return false;
+    }
+    TemplateTree root = TemplateTree.root(template);
+    if (root == null || root.kind() == TemplateTree.Kind.TEXT) {
+      return true;
+    }
+    if (root.kind() != TemplateTree.Kind.SEQUENCE) {
+      return false;
+    }
+    for (int i = 0; i < root.childCount(); i++) {
+      TemplateTree.Kind kind = root.child(i).kind();
+      if (kind != TemplateTree.Kind.TEXT && kind != TemplateTree.Kind.COMMENT) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Prune the dead branches of children.
+   *
+   * @return {@code true} if a node is replaced
+   */
+  private static boolean specializeChildren(TemplateTree node, String databaseId) {
+    // The branches of a chain should be evaluated together
+    boolean chain = node.kind() == TemplateTree.Kind.IF;
+    boolean replaced = false;
+    for (int i = 0; i < node.childCount(); i++) {
+      TemplateTree child = node.child(i);
+      TemplateTree replacement = chain ? null : evaluate(child, databaseId);
+      if (replacement != null && !replacement.equals(child)) {
+        node.setChild(i, replacement);
+        child = replacement;
+        replaced = true;
+      }
+      replaced |= specializeChildren(child, databaseId);
+    }
+    return replaced;
+  }
+
+  /**
+   * Evaluate the conditional node.
+   *
+   * @return the node that replaces the conditional node, or {@code null} if it cannot be evaluated statically
+   */
+  private static TemplateTree evaluate(TemplateTree node, String databaseId) {
+    if (node.kind() == TemplateTree.Kind.BRANCH) {
+      Boolean result = evaluateCondition(node, databaseId);
+      if (result == null) {
+        return null;
+      }
+      return result ? toReplacement(node) : TemplateTree.text("");
+    } else if (node.kind() == TemplateTree.Kind.IF) {
+      // Evaluate all conditions at first, because a chain cannot be pruned partially
+      Boolean[] results = new Boolean[node.childCount()];
+      for (int i = 0; i < results.length; i++) {
+        results[i] = evaluateCondition(node.child(i), databaseId);
+        if (results[i] == null) {
+          return null;
+        }
+      }
+      for (int i = 0; i < results.length; i++) {
+        if (results[i]) {
+          return toReplacement(node.child(i));
+        }
+      }
+      return TemplateTree.text("");
+    }
+    return null;
+  }
+
+  private static Boolean evaluateCondition(TemplateTree branch, String databaseId) {
+    String description = branch.description();
+    if (ELSE_DESCRIPTION.equals(description)) {
+      return Boolean.TRUE;
+    }
+    Matcher matcher = CONDITION_PATTERN.matcher(description);
+    if (matcher.matches()) {
+      return compare(matcher.group(1), databaseId, matcher.group(2));
+    }
+    matcher = REVERSED_CONDITION_PATTERN.matcher(description);
+    if (matcher.matches()) {
+      return compare(matcher.group(2), databaseId, matcher.group(1));
+    }
+    return null;
+  }
+
+  private static boolean compare(String operator, String databaseId, String literal) {
+    return "!=".equals(operator) != databaseId.equals(literal);
+  }
+
+  private static TemplateTree toReplacement(TemplateTree branch) {
+    switch (branch.childCount()) {
+      case 0:
+        return TemplateTree.text("");
+      case 1:
+        return branch.child(0);
+      default:
+        // The body that has multiple nodes cannot be detached from the block (a condition is evaluated only once)
+        return branch;
+    }
+  }
+
+}
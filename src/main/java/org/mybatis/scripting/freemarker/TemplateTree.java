@@ -0,0 +1,249 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+import freemarker.core.TemplateElement;
+import freemarker.core.TextBlock;
+import freemarker.template.Template;
+
+/**
+ * The view of the parsed template tree. It is the only class that accesses the internal (deprecated) tree API of
+ * FreeMarker, that is used by {@link TemplateSpecializer}, {@link RenderPlan} and {@link SqlCompactor}.
+ * <p>
+ * The node names and the text format of descriptions are not a contract of FreeMarker, so they are verified once by
+ * parsing a probe template. When the format differs (e.g. after upgrading FreeMarker), the tree is reported as
+ * unsupported and the features that depend on it are disabled with a warning, instead of matching the tree wrongly.
+ * </p>
+ *
+ * @since 1.3.3
+ */
+@SuppressWarnings("deprecation")
+final class TemplateTree {
+
+  private static final Log log = LogFactory.getLog(TemplateTree.class);
+
+  private static final String NOPARSE_PREFIX = "<#noparse>";
+
+  private static final String ATTRIBUTE_PREFIX = TemplateTree.class.getName() + ".";
+
+  /**
+   * The probe template that contains all constructs used by the features.
+   */
+  static final String PROBE_SOURCE = "<#-- c -->t <#if _databaseId == 'h2'>${a.b}<#elseif \"h2\" = _databaseId>#{n}"
+      + "<#else>e</#if><#list xs as x>${x}<#sep>,</#sep><#else>n</#list><#list ys><#items as y>${y}</#items></#list>"
+      + "<#assign a = 1><#assign b = 2 c = 'x'><@p value=x/><@w prefix='(' n=1>b</@w><#noparse>${z}</#noparse>"
+      + "<#switch x><#case 1>o</#switch>";
+
+  /**
+   * The expected tree of the probe template (see {@link #dump()}).
+   */
+  static final String PROBE_TREE = "SEQUENCE(root)[COMMENT(comment \"c\"), TEXT(t ), IF(#if-#elseif-#else-container)"
+      + "[BRANCH(#if _databaseId == \"h2\")[INTERPOLATION(${a.b})], BRANCH(#elseif \"h2\" = _databaseId)"
+      + "[NUMERICAL_INTERPOLATION(#{n})], BRANCH(#else)[TEXT(e)]], LIST_WITH_ELSE(#list-#else-container)"
+      + "[LIST(#list xs as x)[INTERPOLATION(${x}), SEP(#sep)[TEXT(,)]], LIST_ELSE(#else)[TEXT(n)]], LIST(#list ys)"
+      + "[ITEMS(#items as y)[INTERPOLATION(${y})]], ASSIGNMENT(#assign a = 1), ASSIGNMENTS(#assign-container)"
+      + "[ASSIGNMENT(b = 2), ASSIGNMENT(c = \"x\")], DIRECTIVE_CALL(@p value=x), DIRECTIVE_CALL(@w prefix=\"(\" n=1)"
+      + "[TEXT(b)], TEXT(null), OTHER(#switch x)[OTHER(#case 1)[TEXT(o)]]]";
+
+  private static final boolean SUPPORTED = probe();
+
+  /**
+   * The kinds of node.
+   */
+  enum Kind {
+    SEQUENCE("MixedContent"), COMMENT("Comment"), TEXT("TextBlock"), INTERPOLATION("DollarVariable"),
+    NUMERICAL_INTERPOLATION("NumericalOutput"), IF("IfBlock"), BRANCH("ConditionalBlock"), LIST("IteratorBlock"),
+    LIST_WITH_ELSE("ListElseContainer"), LIST_ELSE("ElseOfList"), ITEMS("Items"), SEP("Sep"),
+    ASSIGNMENT("Assignment"), ASSIGNMENTS("AssignmentInstruction"), DIRECTIVE_CALL("UnifiedCall"), OTHER(null);
+
+    private final String nodeName;
+
+    Kind(String nodeName) {
+      this.nodeName = nodeName;
+    }
+
+    private static Kind of(String nodeName) {
+      for (Kind kind : values()) {
+        if (nodeName.equals(kind.nodeName)) {
+          return kind;
+        }
+      }
+      return OTHER;
+    }
+  }
+
+  private final TemplateElement element;
+  private final Kind kind;
+
+  private TemplateTree(TemplateElement element) {
+    this.element = element;
+    this.kind = Kind.of(element.getNodeName());
+  }
+
+  /**
+   * Whether the tree of this FreeMarker version has the expected format.
+   *
+   * @return {@code true} if the tree can be used
+   */
+  static boolean isSupported() {
+    return SUPPORTED;
+  }
+
+  /**
+   * Get the root node of template.
+   *
+   * @param template
+   *          the template
+   *
+   * @return the root node, or {@code null} if the template is empty
+   */
+  static TemplateTree root(Template template) {
+    TemplateElement root = template.getRootTreeNode();
+    return root == null ? null : new TemplateTree(root);
+  }
+
+  /**
+   * Create a static text node.
+   *
+   * @param text
+   *          the text
+   *
+   * @return the text node
+   */
+  static TemplateTree text(String text) {
+    return new TemplateTree(new TextBlock(text));
+  }
+
+  /**
+   * Transform the tree of template in place only once. The transformed template is marked by a custom attribute, so a
+   * template that is shared by statements (e.g. a cached template file) is never modified after it is transformed.
+   * The transformation should be idempotent and should keep the semantics of template.
+   *
+   * @param template
+   *          the template
+   * @param name
+   *          the name of transformation
+   * @param transformation
+   *          the transformation that receives the root node
+   */
+  static void transformOnce(Template template, String name, Consumer<TemplateTree> transformation) {
+    if (!SUPPORTED) {
+      return;
+    }
+    String attributeName = ATTRIBUTE_PREFIX + name;
+    synchronized (template) {
+      if (template.getCustomAttribute(attributeName) != null) {
+        return;
+      }
+      TemplateTree root = root(template);
+      if (root != null) {
+        transformation.accept(root);
+      }
+      template.setCustomAttribute(attributeName, Boolean.TRUE);
+    }
+  }
+
+  Kind kind() {
+    return kind;
+  }
+
+  /**
+   * Get the description of node (e.g. {@code #if x == 1} or {@code @p value=x}).
+   *
+   * @return the description
+   */
+  String description() {
+    return element.getDescription();
+  }
+
+  /**
+   * Get the text of a text node.
+   *
+   * @return the text, or {@code null} if it is not a text node or it is a {@code #noparse} block
+   */
+  String text() {
+    if (kind != Kind.TEXT) {
+      return null;
+    }
+    String text = element.getCanonicalForm();
+    return text.startsWith(NOPARSE_PREFIX) ? null : text;
+  }
+
+  int childCount() {
+    return element.getChildCount();
+  }
+
+  TemplateTree child(int index) {
+    return new TemplateTree((TemplateElement) element.getChildAt(index));
+  }
+
+  void setChild(int index, TemplateTree child) {
+    element.setChildAt(index, child.element);
+  }
+
+  /**
+   * Dump the tree for verifying the format.
+   *
+   * @return the kinds and the descriptions (or texts) of nodes
+   */
+  String dump() {
+    StringBuilder result = new StringBuilder();
+    result.append(kind).append('(').append(kind == Kind.TEXT ? text() : description()).append(')');
+    if (childCount() > 0) {
+      result.append('[');
+      for (int i = 0; i < childCount(); i++) {
+        result.append(i > 0 ? ", " : "").append(child(i).dump());
+      }
+      result.append(']');
+    }
+    return result.toString();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof TemplateTree && ((TemplateTree) obj).element == element;
+  }
+
+  @Override
+  public int hashCode() {
+    return System.identityHashCode(element);
+  }
+
+  private static boolean probe() {
+    String tree;
+    try {
+      tree = new TemplateTree(new Template(null, PROBE_SOURCE,
+          new freemarker.template.Configuration(freemarker.template.Configuration.VERSION_2_3_22)).getRootTreeNode())
+          .dump();
+    } catch (IOException | RuntimeException e) {
+      tree = e.toString();
+    }
+    if (!PROBE_TREE.equals(tree)) {
+      log.warn("The template tree of FreeMarker " + freemarker.template.Configuration.getVersion()
+          + " has an unexpected format, so the database id specialization, the template compilation and the SQL"
+          + " compaction are disabled. tree:[" + tree + "]");
+      return false;
+    }
+    return true;
+  }
+
+}
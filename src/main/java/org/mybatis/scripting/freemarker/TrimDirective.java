@@ -0,0 +1,199 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+
+import freemarker.core.Environment;
+import freemarker.template.TemplateDirectiveBody;
+import freemarker.template.TemplateDirectiveModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateScalarModel;
+
+/**
+ * Custom FreeMarker directive that works as same as the {@code <trim>} element of MyBatis XML. The body is rendered into
+ * a buffer once, the leading/trailing separators specified by {@code prefixOverrides}/{@code suffixOverrides} (separated
+ * by {@code |}, case-insensitive) are removed in place, and the {@code prefix}/{@code suffix} is added only when the
+ * body is not blank:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ *     &lt;@trim prefix="WHERE" prefixOverrides="AND |OR "&gt;
+ *       &lt;#if firstName??&gt;AND firstName = &lt;@p name="firstName"/&gt;&lt;/#if&gt;
+ *       &lt;#if lastName??&gt;AND lastName = &lt;@p name="lastName"/&gt;&lt;/#if&gt;
+ *     &lt;/@trim&gt;
+ * </pre>
+ *
+ * </blockquote>
+ *
+ * @see WhereDirective
+ * @see SetDirective
+ *
+ * @since 1.3.3
+ */
+public class TrimDirective implements TemplateDirectiveModel {
+  public static final String DEFAULT_KEY = "trim";
+
+  private final String prefix;
+  private final String[] prefixOverrides;
+  private final String suffix;
+  private final String[] suffixOverrides;
+
+  /**
+   * Constructor for using attributes that specified at the template.
+   */
+  public TrimDirective() {
+    this(null, null, null, null);
+  }
+
+  /**
+   * Constructor for specifying default attributes.
+   *
+   * @param prefix
+   *          a default prefix
+   * @param prefixOverrides
+   *          default prefix overrides (separated by {@code |})
+   * @param suffix
+   *          a default suffix
+   * @param suffixOverrides
+   *          default suffix overrides (separated by {@code |})
+   */
+  protected TrimDirective(String prefix, String prefixOverrides, String suffix, String suffixOverrides) {
+    this.prefix = prefix;
+    this.prefixOverrides = parseOverrides(prefixOverrides);
+    this.suffix = suffix;
+    this.suffixOverrides = parseOverrides(suffixOverrides);
+  }
+
+  @Override
+  public void execute(Environment env, Map params, TemplateModel[] loopVars, TemplateDirectiveBody body)
+      throws TemplateException, IOException {
+    if (body == null) {
+      return;
+    }
+    String actualPrefix = getString(params, "prefix", prefix);
+    String actualSuffix = getString(params, "suffix", suffix);
+    String[] actualPrefixOverrides = params.containsKey("prefixOverrides")
+        ? parseOverrides(getString(params, "prefixOverrides", null)) : prefixOverrides;
+    String[] actualSuffixOverrides = params.containsKey("suffixOverrides")
+        ? parseOverrides(getString(params, "suffixOverrides", null)) : suffixOverrides;
+
+    BodyBuffer buffer = new BodyBuffer();
+    body.render(buffer);
+    buffer.trim(actualPrefixOverrides, actualSuffixOverrides);
+    if (buffer.isEmpty()) {
+      return;
+    }
+
+    Writer out = env.getOut();
+    if (actualPrefix != null) {
+      out.write(actualPrefix);
+      out.write(' ');
+    }
+    buffer.writeTrimmedTo(out);
+    if (actualSuffix != null) {
+      out.write(' ');
+      out.write(actualSuffix);
+    }
+  }
+
+  private static String getString(Map params, String name, String defaultValue) throws TemplateModelException {
+    Object value = params.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    if (!(value instanceof TemplateScalarModel)) {
+      throw new TemplateModelException(String.format("The '%s' attribute should be a string.", name));
+    }
+    return ((TemplateScalarModel) value).getAsString();
+  }
+
+  private static String[] parseOverrides(String overrides) {
+    if (overrides == null || overrides.isEmpty()) {
+      return new String[0];
+    }
+    String[] tokens = overrides.split("\\|", -1);
+    for (int i = 0; i < tokens.length; i++) {
+      tokens[i] = tokens[i].toUpperCase(Locale.ENGLISH);
+    }
+    return tokens;
+  }
+
+  /**
+   * The buffer that holds a rendered body and removes the separators without copying.
+   */
+  private static class BodyBuffer extends CharArrayWriter {
+    private int start;
+    private int end;
+
+    void trim(String[] prefixOverrides, String[] suffixOverrides) {
+      start = 0;
+      end = count;
+      trimWhitespaces();
+      for (String override : prefixOverrides) {
+        if (!override.isEmpty() && regionMatches(start, override)) {
+          start += override.length();
+          break;
+        }
+      }
+      for (String override : suffixOverrides) {
+        if (!override.isEmpty() && end - override.length() >= start
+            && regionMatches(end - override.length(), override)) {
+          end -= override.length();
+          break;
+        }
+      }
+      trimWhitespaces();
+    }
+
+    boolean isEmpty() {
+      return start >= end;
+    }
+
+    void writeTrimmedTo(Writer out) throws IOException {
+      out.write(buf, start, end - start);
+    }
+
+    private void trimWhitespaces() {
+      while (start < end && buf[start] <= ' ') {
+        start++;
+      }
+      while (end > start && buf[end - 1] <= ' ') {
+        end--;
+      }
+    }
+
+    private boolean regionMatches(int offset, String upperCaseToken) {
+      if (offset + upperCaseToken.length() > end) {
+        return false;
+      }
+      for (int i = 0; i < upperCaseToken.length(); i++) {
+        if (Character.toUpperCase(buf[offset + i]) != upperCaseToken.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker.support;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.mybatis.scripting.freemarker.BoundSqlMemo;
+
+/**
+ * The interceptor that opens the scope of {@link BoundSqlMemo} for each execution of {@link Executor}. While the
+ * execution, the templates of {@link org.mybatis.scripting.freemarker.FreeMarkerSqlSource} are rendered only once per
+ * parameter instance, even if other interceptors (e.g. pagination or auditing plugins) call
+ * {@code MappedStatement#getBoundSql} several times. The memo is discarded at the end of the execution.
+ * <p>
+ * The memo is keyed by the identity of parameter object, so it is invalidated after each update. While an update with
+ * a key generator (e.g. {@code useGeneratedKeys} or {@code selectKey}) is executed, the memo is suspended, because the
+ * key generator modifies the parameter object. The interceptors that modify a parameter object should call
+ * {@link BoundSqlMemo#invalidate()}.
+ * </p>
+ * <p>
+ * Because the last registered interceptor wraps the others, it should be registered after the interceptors that call
+ * {@code getBoundSql}:
+ * </p>
+ *
+ * <pre>
+ * &lt;plugins&gt;
+ *   &lt;plugin interceptor="com.example.PaginationInterceptor"/&gt;
+ *   &lt;plugin interceptor="org.mybatis.scripting.freemarker.support.BoundSqlMemoInterceptor"/&gt;
+ * &lt;/plugins&gt;
+ * </pre>
+ *
+ * @since 1.3.3
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }),
+    @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+        RowBounds.class, ResultHandler.class }),
+    @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+        RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class }),
+    @Signature(type = Executor.class, method = "queryCursor", args = { MappedStatement.class, Object.class,
+        RowBounds.class }) })
+public class BoundSqlMemoInterceptor implements Interceptor {
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    boolean update = "update".equals(invocation.getMethod().getName());
+    MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+    // The key generator modifies the parameter object while the update is executed
+    BoundSqlMemo.Scope scope = update && !(mappedStatement.getKeyGenerator() instanceof NoKeyGenerator)
+        ? BoundSqlMemo.suspend() : BoundSqlMemo.open();
+    try {
+      return invocation.proceed();
+    } finally {
+      scope.close();
+      if (update) {
+        // The update in an outer scope (e.g. a nested statement) may modify the parameter objects
+        BoundSqlMemo.invalidate();
+      }
+    }
+  }
+
+}
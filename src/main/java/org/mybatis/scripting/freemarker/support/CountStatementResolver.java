@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.mybatis.scripting.freemarker.CountSqlSource;
+import org.mybatis.scripting.freemarker.FreeMarkerSqlSource;
+
+/**
+ * The resolver for COUNT statements that derived from select statements using {@link FreeMarkerSqlSource}.
+ * <p>
+ * A COUNT statement is identified by the original statement id with {@value #COUNT_STATEMENT_SUFFIX} suffix, and it
+ * returns a {@link Long} value as follow:
+ * </p>
+ *
+ * <pre>
+ * CountStatementResolver.resolve(configuration, "com.example.mapper.NameMapper.findByConditions-count");
+ *
+ * long total = sqlSession.selectOne("com.example.mapper.NameMapper.findByConditions-count", conditions);
+ * </pre>
+ *
+ * @since 1.3.3
+ */
+public class CountStatementResolver {
+
+  /**
+   * The suffix of statement id for COUNT statement.
+   */
+  public static final String COUNT_STATEMENT_SUFFIX = "-count";
+
+  private CountStatementResolver() {
+    // NOP
+  }
+
+  /**
+   * Resolve a COUNT statement. If it has not been registered yet, create it from the original select statement and
+   * register it into the specified configuration.
+   *
+   * @param configuration
+   *          the MyBatis configuration
+   * @param countStatementId
+   *          the statement id that end with {@value #COUNT_STATEMENT_SUFFIX}
+   *
+   * @return the COUNT statement
+   */
+  public static MappedStatement resolve(Configuration configuration, String countStatementId) {
+    if (!countStatementId.endsWith(COUNT_STATEMENT_SUFFIX)) {
+      throw new IllegalArgumentException(
+          "The statement id for COUNT query should end with '" + COUNT_STATEMENT_SUFFIX + "'. id:[" + countStatementId
+              + "]");
+    }
+    synchronized (configuration) {
+      if (configuration.hasStatement(countStatementId, false)) {
+        return configuration.getMappedStatement(countStatementId, false);
+      }
+      String statementId = countStatementId.substring(0,
+          countStatementId.length() - COUNT_STATEMENT_SUFFIX.length());
+      MappedStatement countStatement = createCountStatement(configuration.getMappedStatement(statementId));
+      configuration.addMappedStatement(countStatement);
+      return countStatement;
+    }
+  }
+
+  /**
+   * Register COUNT statements for all select statements that use {@link FreeMarkerSqlSource}.
+   *
+   * @param configuration
+   *          the MyBatis configuration
+   */
+  public static void resolveAll(Configuration configuration) {
+    List<String> statementIds = new ArrayList<>();
+    for (Object statement : new ArrayList<>(configuration.getMappedStatements())) {
+      // The 'getMappedStatements()' may contain an ambiguity marker for short names
+      if (statement instanceof MappedStatement && isCountable((MappedStatement) statement)) {
+        statementIds.add(((MappedStatement) statement).getId());
+      }
+    }
+    statementIds.stream().distinct().forEach(id -> resolve(configuration, id + COUNT_STATEMENT_SUFFIX));
+  }
+
+  private static boolean isCountable(MappedStatement statement) {
+    return statement.getSqlCommandType() == SqlCommandType.SELECT
+        && statement.getSqlSource() instanceof FreeMarkerSqlSource
+        && !statement.getId().endsWith(COUNT_STATEMENT_SUFFIX);
+  }
+
+  private static MappedStatement createCountStatement(MappedStatement statement) {
+    if (!isCountable(statement)) {
+      throw new IllegalStateException(
+          "The COUNT statement can derive from a select statement using FreeMarkerSqlSource only. id:["
+              + statement.getId() + "]");
+    }
+    Configuration configuration = statement.getConfiguration();
+    String id = statement.getId() + COUNT_STATEMENT_SUFFIX;
+    ResultMap resultMap = new ResultMap.Builder(configuration, id + "-Inline", Long.class, new ArrayList<>(), null)
+        .build();
+    return new MappedStatement.Builder(configuration, id,
+        ((FreeMarkerSqlSource) statement.getSqlSource()).getCountSqlSource(), SqlCommandType.SELECT)
+            .resource(statement.getResource()).databaseId(statement.getDatabaseId()).lang(statement.getLang())
+            .statementType(statement.getStatementType()).timeout(statement.getTimeout())
+            .parameterMap(statement.getParameterMap()).resultMaps(Collections.singletonList(resultMap))
+            .flushCacheRequired(statement.isFlushCacheRequired()).useCache(statement.isUseCache())
+            .cache(statement.getCache()).build();
+  }
+
+}
@@ -0,0 +1,134 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link FreeMarkerSqlSource#getBoundSqlGroups(List)}.
+ */
+class BatchRenderTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:batch-render");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(BatchRenderMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testGroupByIdenticalSql() throws Exception {
+    MappedStatement statement = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(BatchRenderMapper.class.getName() + ".insert");
+    List<Name> names = Arrays.asList(name(101, "Dino", null), name(102, "Bamm-Bamm", "Rubble"),
+        name(103, "Hoppy", null), name(104, "Mr.", "Slate"), name(105, "Gazoo", null));
+
+    Map<String, List<BoundSql>> groups = ((FreeMarkerSqlSource) statement.getSqlSource()).getBoundSqlGroups(names);
+
+    Assertions.assertEquals(2, groups.size());
+    Iterator<Map.Entry<String, List<BoundSql>>> iterator = groups.entrySet().iterator();
+    Map.Entry<String, List<BoundSql>> first = iterator.next();
+    Assertions.assertEquals("insert into names (id, firstName) values (?, ?)", first.getKey());
+    Assertions.assertEquals(3, first.getValue().size());
+    Assertions.assertSame(first.getValue().get(0).getParameterMappings(),
+        first.getValue().get(2).getParameterMappings());
+    Assertions.assertEquals("Gazoo", first.getValue().get(2).getAdditionalParameter("_p1"));
+    Map.Entry<String, List<BoundSql>> second = iterator.next();
+    Assertions.assertEquals("insert into names (id, firstName, lastName) values (?, ?, ?)", second.getKey());
+    Assertions.assertEquals(2, second.getValue().size());
+
+    // Reuse one prepared statement per group
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Connection connection = sqlSession.getConnection();
+      for (Map.Entry<String, List<BoundSql>> group : groups.entrySet()) {
+        try (PreparedStatement ps = connection.prepareStatement(group.getKey())) {
+          for (BoundSql boundSql : group.getValue()) {
+            new DefaultParameterHandler(statement, boundSql.getParameterObject(), boundSql).setParameters(ps);
+            ps.addBatch();
+          }
+          ps.executeBatch();
+        }
+      }
+      List<Name> inserted = sqlSession.getMapper(BatchRenderMapper.class).findFrom(101);
+      Assertions.assertEquals(5, inserted.size());
+      Assertions.assertNull(inserted.get(0).getLastName());
+      Assertions.assertEquals("Slate", inserted.get(3).getLastName());
+      sqlSession.rollback(true);
+    }
+  }
+
+  @Test
+  void testEmpty() {
+    MappedStatement statement = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(BatchRenderMapper.class.getName() + ".insert");
+    Assertions.assertTrue(
+        ((FreeMarkerSqlSource) statement.getSqlSource()).getBoundSqlGroups(new ArrayList<>()).isEmpty());
+  }
+
+  private static Name name(int id, String firstName, String lastName) {
+    Name name = new Name();
+    name.setId(id);
+    name.setFirstName(firstName);
+    name.setLastName(lastName);
+    return name;
+  }
+
+}
@@ -0,0 +1,45 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.SelectKey;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * Mapper for {@link BoundSqlMemoTest}.
+ */
+public interface BoundSqlMemoMapper {
+  @Lang(BoundSqlMemoTest.CountingLanguageDriver.class)
+  @Select("select * from names where id = <@p value=id/><#if renders??></#if>")
+  Name findById(@Param("id") int id);
+
+  @Lang(BoundSqlMemoTest.CountingLanguageDriver.class)
+  @Select("select * from names where id = <@p value=id/><#if renders??></#if>")
+  Name findByParam(NameParam param);
+
+  @Lang(BoundSqlMemoTest.CountingLanguageDriver.class)
+  @Insert("insert into names (id, firstName, lastName) values (<@p value=id/>, 'Dino', 'Flintstone')")
+  @SelectKey(statement = "select max(id) + 1 from names", keyProperty = "id", before = true, resultType = int.class)
+  int insertName(NameParam param);
+
+  @Lang(BoundSqlMemoTest.CountingLanguageDriver.class)
+  @Update("update names set lastName = 'Slate' where id = <@p value=id/>")
+  int updateName(NameParam param);
+}
@@ -0,0 +1,273 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.scripting.freemarker.support.BoundSqlMemoInterceptor;
+
+/**
+ * Test for {@link BoundSqlMemo}.
+ */
+class BoundSqlMemoTest {
+  private static final AtomicInteger RENDERS = new AtomicInteger();
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:bound-sql-memo");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addInterceptor(new BoundSqlInspectingInterceptor());
+    // The memo interceptor wraps the interceptors that are registered before
+    configuration.addInterceptor(new BoundSqlMemoInterceptor());
+    configuration.addMapper(BoundSqlMemoMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @BeforeEach
+  void resetRenders() {
+    RENDERS.set(0);
+  }
+
+  @Test
+  void testRenderOncePerExecution() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      BoundSqlMemoMapper mapper = sqlSession.getMapper(BoundSqlMemoMapper.class);
+      Assertions.assertEquals("Fred", mapper.findById(1).getFirstName());
+      Assertions.assertEquals(1, RENDERS.get());
+      Assertions.assertEquals("Wilma", mapper.findByParam(new NameParam(2)).getFirstName());
+      Assertions.assertEquals(2, RENDERS.get());
+    }
+    Assertions.assertNull(BoundSqlMemo.current());
+  }
+
+  @Test
+  void testRenderPerCallWithoutScope() {
+    MappedStatement statement = getMappedStatement("findByParam");
+    NameParam param = new NameParam(1);
+    Assertions.assertNotSame(statement.getBoundSql(param), statement.getBoundSql(param));
+    Assertions.assertEquals(2, RENDERS.get());
+  }
+
+  @Test
+  void testReuseWhileScopeIsOpen() {
+    MappedStatement statement = getMappedStatement("findById");
+    Map<String, Object> param = new HashMap<>(Collections.singletonMap("id", 1));
+    BoundSqlMemo.Scope scope = BoundSqlMemo.open();
+    try {
+      BoundSql first = statement.getBoundSql(param);
+      BoundSql second = statement.getBoundSql(param);
+      Assertions.assertEquals(1, RENDERS.get());
+      // Each call returns a copy
+      Assertions.assertNotSame(first, second);
+      Assertions.assertEquals(first.getSql(), second.getSql());
+      first.setAdditionalParameter("_p0", 100);
+      Assertions.assertEquals(1, second.getAdditionalParameter("_p0"));
+
+      // Another instance (even if it is equal) is rendered again
+      statement.getBoundSql(new HashMap<>(param));
+      Assertions.assertEquals(2, RENDERS.get());
+
+      BoundSqlMemo.Scope nested = BoundSqlMemo.open();
+      try {
+        statement.getBoundSql(param);
+      } finally {
+        nested.close();
+      }
+      // The nested scope does not discard the memo
+      statement.getBoundSql(param);
+      Assertions.assertEquals(2, RENDERS.get());
+    } finally {
+      scope.close();
+    }
+    Assertions.assertNull(BoundSqlMemo.current());
+    statement.getBoundSql(param);
+    Assertions.assertEquals(3, RENDERS.get());
+  }
+
+  @Test
+  void testInvalidate() {
+    MappedStatement statement = getMappedStatement("findByParam");
+    NameParam param = new NameParam(1);
+    BoundSqlMemo.Scope scope = BoundSqlMemo.open();
+    try {
+      Assertions.assertEquals(1, statement.getBoundSql(param).getAdditionalParameter("_p0"));
+      // The parameter object is never inspected, so the modification should be notified
+      param.setId(2);
+      Assertions.assertEquals(1, statement.getBoundSql(param).getAdditionalParameter("_p0"));
+      BoundSqlMemo.invalidate();
+      Assertions.assertEquals(2, statement.getBoundSql(param).getAdditionalParameter("_p0"));
+      Assertions.assertEquals(2, RENDERS.get());
+    } finally {
+      scope.close();
+    }
+    // It does nothing without scope
+    BoundSqlMemo.invalidate();
+    Assertions.assertNull(BoundSqlMemo.current());
+  }
+
+  @Test
+  void testSuspend() {
+    MappedStatement statement = getMappedStatement("findByParam");
+    NameParam param = new NameParam(1);
+    BoundSqlMemo.Scope scope = BoundSqlMemo.open();
+    try {
+      statement.getBoundSql(param);
+      BoundSqlMemo.Scope suspended = BoundSqlMemo.suspend();
+      try {
+        Assertions.assertEquals(1, statement.getBoundSql(param).getAdditionalParameter("_p0"));
+        param.setId(2);
+        Assertions.assertEquals(2, statement.getBoundSql(param).getAdditionalParameter("_p0"));
+        BoundSqlMemo.Scope nested = BoundSqlMemo.open();
+        try {
+          statement.getBoundSql(param);
+        } finally {
+          nested.close();
+        }
+        Assertions.assertEquals(4, RENDERS.get());
+      } finally {
+        suspended.close();
+      }
+      // The memo is invalidated when the suspending scope is closed
+      Assertions.assertEquals(2, statement.getBoundSql(param).getAdditionalParameter("_p0"));
+      statement.getBoundSql(param);
+      Assertions.assertEquals(5, RENDERS.get());
+    } finally {
+      scope.close();
+    }
+    Assertions.assertNull(BoundSqlMemo.current());
+  }
+
+  @Test
+  void testSuspendWhileGeneratingKey() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      BoundSqlMemoMapper mapper = sqlSession.getMapper(BoundSqlMemoMapper.class);
+      NameParam param = new NameParam(0);
+      // The interceptor renders the insert before the key is selected
+      Assertions.assertEquals(1, mapper.insertName(param));
+      Assertions.assertEquals(6, param.getId());
+      Assertions.assertEquals("Dino", mapper.findByParam(param).getFirstName());
+      sqlSession.rollback();
+    }
+    Assertions.assertNull(BoundSqlMemo.current());
+  }
+
+  @Test
+  void testInvalidateAfterUpdate() {
+    MappedStatement statement = getMappedStatement("findByParam");
+    NameParam param = new NameParam(1);
+    BoundSqlMemo.Scope scope = BoundSqlMemo.open();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      statement.getBoundSql(param);
+      statement.getBoundSql(param);
+      Assertions.assertEquals(1, RENDERS.get());
+      sqlSession.getMapper(BoundSqlMemoMapper.class).updateName(new NameParam(5));
+      statement.getBoundSql(param);
+      Assertions.assertEquals(2, RENDERS.get());
+      sqlSession.rollback();
+    } finally {
+      scope.close();
+    }
+  }
+
+  private static MappedStatement getMappedStatement(String id) {
+    return sqlSessionFactory.getConfiguration().getMappedStatement(BoundSqlMemoMapper.class.getName() + "." + id);
+  }
+
+  /**
+   * The interceptor that calls {@code getBoundSql} before the execution (e.g. a pagination plugin).
+   */
+  @Intercepts({
+      @Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }),
+      @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+          RowBounds.class, ResultHandler.class }) })
+  public static class BoundSqlInspectingInterceptor implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+      Object parameterObject = invocation.getArgs()[1];
+      Assertions.assertEquals(statement.getBoundSql(parameterObject).getSql(),
+          statement.getBoundSql(parameterObject).getSql());
+      return invocation.proceed();
+    }
+  }
+
+  public static class CountingLanguageDriver extends FreeMarkerLanguageDriver {
+    public CountingLanguageDriver() {
+      super(FreeMarkerLanguageDriverConfig.newInstance((FreeMarkerLanguageDriverConfig config) -> config
+          .getDataContextContributors().add(new DataContextContributor() {
+            @Override
+            public String getKey() {
+              return "renders";
+            }
+
+            @Override
+            public Object contribute(Object parameterObject) {
+              return RENDERS.incrementAndGet();
+            }
+          })));
+    }
+  }
+
+}
@@ -0,0 +1,139 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CachedDirective}.
+ */
+class CachedDirectiveTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:cached");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(CachedMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testCachedAcrossRenderings() {
+    ColumnsHelper helper = new ColumnsHelper();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CachedMapper mapper = sqlSession.getMapper(CachedMapper.class);
+      Assertions.assertEquals(2, mapper.findByLastName(helper, "Rubble").size());
+      Assertions.assertEquals(3, mapper.findByLastName(helper, "Flintstone").size());
+    }
+    Assertions.assertEquals(1, helper.count);
+  }
+
+  @Test
+  void testRejectGeneratedParams() {
+    Map<String, Object> params = new HashMap<>();
+    params.put("id", 1);
+    // The value of generated parameter would be bound to other processings
+    Exception e = Assertions.assertThrows(Exception.class, () -> getBoundSql("findRubbles", params));
+    Assertions.assertTrue(e.getMessage().contains("cannot generate parameters"), e.getMessage());
+  }
+
+  @Test
+  void testMyBatisParamsAreBoundPerExecution() {
+    Map<String, Object> params = new HashMap<>();
+    params.put("id", null);
+    params.put("lastName", "Rubble");
+    BoundSql first = getBoundSql("findByIdOrLastName", params);
+    Assertions.assertEquals("select * from names where lastName = ? order by id", first.getSql());
+
+    params.put("id", 1);
+    params.put("lastName", "Flintstone");
+    BoundSql second = getBoundSql("findByIdOrLastName", params);
+    Assertions.assertEquals("select * from names where id = ? or lastName = ? order by id", second.getSql());
+    Assertions.assertEquals("[_p0, lastName]", second.getParameterMappings().stream()
+        .map(ParameterMapping::getProperty).collect(Collectors.toList()).toString());
+    Assertions.assertEquals(1, second.getAdditionalParameter("_p0"));
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CachedMapper mapper = sqlSession.getMapper(CachedMapper.class);
+      Assertions.assertEquals(2, mapper.findByIdOrLastName(null, "Rubble").size());
+      Assertions.assertEquals(4, mapper.findByIdOrLastName(4, "Flintstone").size());
+    }
+  }
+
+  @Test
+  void testNotCachedWhenReferringOuterParams() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CachedMapper mapper = sqlSession.getMapper(CachedMapper.class);
+      Assertions.assertEquals("Fred", mapper.findById(1).getFirstName());
+      Assertions.assertEquals("Pebbles", mapper.findById(3).getFirstName());
+    }
+  }
+
+  private static BoundSql getBoundSql(String id, Object parameterObject) {
+    return sqlSessionFactory.getConfiguration().getMappedStatement(CachedMapper.class.getName() + "." + id)
+        .getBoundSql(parameterObject);
+  }
+
+  public static class ColumnsHelper {
+    private int count;
+
+    public String columns() {
+      count++;
+      return "id, firstName, lastName";
+    }
+  }
+
+}
@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Mapper for {@link CachedDirectiveTest}.
+ */
+public interface CachedMapper {
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select <@cached key='columns'>${helper.columns()}</@cached> from names"
+      + " where lastName = <@p value=lastName/>")
+  List<Name> findByLastName(@Param("helper") CachedDirectiveTest.ColumnsHelper helper,
+      @Param("lastName") String lastName);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where <#if id??>id = <@p value=id/> or </#if>"
+      + "<@cached key='lastName'>lastName = <@p value='Rubble'/></@cached> order by id")
+  List<Name> findRubbles(@Param("id") Integer id);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where <#if id??>id = <@p value=id/> or </#if>"
+      + "<@cached key='lastName'>lastName = <@p name='lastName'/></@cached> order by id")
+  List<Name> findByIdOrLastName(@Param("id") Integer id, @Param("lastName") String lastName);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where <@memo key='id'><@p value=id/></@memo> = 0"
+      + " or <@cached key='id'>id = <@memo key='id'/></@cached>")
+  Name findById(@Param("id") int id);
+}
@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Mapper for {@link CountSqlSourceTest}.
+ */
+public interface CountMapper {
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where lastName = <@p name='lastName'/> order by firstName")
+  List<Name> findByLastName(@Param("lastName") String lastName);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where id in (<#list ids as id><@p value=id/><#sep>, </#list>)"
+      + " order by case when id = <@p value=firstId/> then 0 else 1 end, id")
+  List<Name> findByIds(@Param("ids") List<Integer> ids, @Param("firstId") int firstId);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where lastName = <@p name='lastName'/> order by id for update")
+  List<Name> findByLastNameForUpdate(@Param("lastName") String lastName);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names order by id offset 1 rows fetch first 2 rows only")
+  List<Name> findPage();
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Insert("insert into names (firstName, lastName) values (<@p name='firstName'/>, <@p name='lastName'/>)")
+  void insert(Name name);
+}
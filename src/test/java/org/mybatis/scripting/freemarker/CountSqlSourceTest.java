@@ -0,0 +1,199 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mybatis.scripting.freemarker.support.CountStatementResolver;
+
+/**
+ * Test for deriving COUNT queries from select templates.
+ */
+class CountSqlSourceTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:count");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(CountMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testCountWithNamedParam() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    String id = CountMapper.class.getName() + ".findByLastName" + CountStatementResolver.COUNT_STATEMENT_SUFFIX;
+    MappedStatement statement = CountStatementResolver.resolve(configuration, id);
+    Assertions.assertSame(statement, CountStatementResolver.resolve(configuration, id));
+
+    Map<String, Object> params = new HashMap<>();
+    params.put("lastName", "Flintstone");
+    Assertions.assertEquals("SELECT COUNT(*) FROM (select * from names where lastName = ?\n) count_",
+        statement.getBoundSql(params).getSql());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Long count = sqlSession.selectOne(id, params);
+      Assertions.assertEquals(3L, count);
+    }
+  }
+
+  @Test
+  void testCountDropsParamsOfOrderBy() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    String id = CountMapper.class.getName() + ".findByIds" + CountStatementResolver.COUNT_STATEMENT_SUFFIX;
+    MappedStatement statement = CountStatementResolver.resolve(configuration, id);
+
+    Map<String, Object> params = new HashMap<>();
+    params.put("ids", Arrays.asList(1, 2, 4));
+    params.put("firstId", 4);
+    Assertions.assertEquals(3, statement.getBoundSql(params).getParameterMappings().size());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CountMapper mapper = sqlSession.getMapper(CountMapper.class);
+      Assertions.assertEquals(4, mapper.findByIds(Arrays.asList(1, 2, 4), 4).get(0).getId());
+      Long count = sqlSession.selectOne(id, params);
+      Assertions.assertEquals(3L, count);
+    }
+  }
+
+  @Test
+  void testCountStripsLockingClause() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    String id = CountMapper.class.getName() + ".findByLastNameForUpdate"
+        + CountStatementResolver.COUNT_STATEMENT_SUFFIX;
+    MappedStatement statement = CountStatementResolver.resolve(configuration, id);
+
+    Map<String, Object> params = new HashMap<>();
+    params.put("lastName", "Rubble");
+    Assertions.assertEquals("SELECT COUNT(*) FROM (select * from names where lastName = ?\n) count_",
+        statement.getBoundSql(params).getSql());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Long count = sqlSession.selectOne(id, params);
+      Assertions.assertEquals(2L, count);
+    }
+  }
+
+  @Test
+  void testCountKeepsOrderByWithAmbiguousPlaceholders() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    String sql = "select * from docs where data ?| array['a'] and id > ? order by case when id = ? then 0 else 1 end";
+    SqlSource sqlSource = new StaticSqlSource(configuration, sql,
+        Arrays.asList(new ParameterMapping.Builder(configuration, "minId", Integer.class).build(),
+            new ParameterMapping.Builder(configuration, "firstId", Integer.class).build()));
+    BoundSql boundSql = new CountSqlSource(sqlSource, configuration).getBoundSql(null);
+    Assertions.assertEquals("SELECT COUNT(*) FROM (" + sql + "\n) count_", boundSql.getSql());
+    Assertions.assertEquals(2, boundSql.getParameterMappings().size());
+
+    // The locking clause that contains a placeholder cannot be removed
+    SqlSource lockingSqlSource = new StaticSqlSource(configuration,
+        "select * from docs where data ?| array['a'] for update wait ?",
+        Collections.singletonList(new ParameterMapping.Builder(configuration, "timeout", Integer.class).build()));
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> new CountSqlSource(lockingSqlSource, configuration).getBoundSql(null));
+  }
+
+  @Test
+  void testCountKeepsOrderByWithRowLimiting() {
+    String id = CountMapper.class.getName() + ".findPage" + CountStatementResolver.COUNT_STATEMENT_SUFFIX;
+    CountStatementResolver.resolveAll(sqlSessionFactory.getConfiguration());
+    Assertions.assertTrue(sqlSessionFactory.getConfiguration().hasStatement(id));
+    Assertions.assertFalse(sqlSessionFactory.getConfiguration()
+        .hasStatement(CountMapper.class.getName() + ".insert" + CountStatementResolver.COUNT_STATEMENT_SUFFIX));
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Long count = sqlSession.selectOne(id);
+      Assertions.assertEquals(2L, count);
+    }
+  }
+
+  @Test
+  void testInvalidStatement() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> CountStatementResolver.resolve(configuration, CountMapper.class.getName() + ".findPage"));
+    Assertions.assertThrows(IllegalStateException.class, () -> CountStatementResolver.resolve(configuration,
+        CountMapper.class.getName() + ".insert" + CountStatementResolver.COUNT_STATEMENT_SUFFIX));
+  }
+
+  @Test
+  void testFindOrderByIndex() {
+    Assertions.assertEquals(20, CountSqlSource.findOrderByIndex("select * from names order by id"));
+    Assertions.assertEquals(-1, CountSqlSource.findOrderByIndex("select * from names order by id limit 10"));
+    Assertions.assertEquals(-1, CountSqlSource.findOrderByIndex("select * from (select * from t order by id) x"));
+    Assertions.assertEquals(-1, CountSqlSource.findOrderByIndex("select 'order by x' from names"));
+    Assertions.assertEquals(-1, CountSqlSource.findOrderByIndex("select * from names -- order by id"));
+    Assertions.assertEquals(-1, CountSqlSource.findOrderByIndex("select border, byline from names"));
+    Assertions.assertEquals(-1, CountSqlSource.findOrderByIndex("select * from names order by id for update"));
+  }
+
+  @Test
+  void testFindLockingClauseIndex() {
+    Assertions.assertEquals(32, CountSqlSource.findLockingClauseIndex("select * from names order by id for update"));
+    Assertions.assertEquals(20, CountSqlSource.findLockingClauseIndex("select * from names FOR SHARE of names"));
+    Assertions.assertEquals(20, CountSqlSource.findLockingClauseIndex("select * from names for no key update"));
+    Assertions.assertEquals(-1, CountSqlSource.findLockingClauseIndex("select * from names for read only"));
+    Assertions.assertEquals(-1, CountSqlSource.findLockingClauseIndex("select * from (select * from t for update) x"));
+    Assertions.assertEquals(-1, CountSqlSource.findLockingClauseIndex("select 'for update' from names"));
+  }
+
+  @Test
+  void testCountPlaceholders() {
+    Assertions.assertEquals(2, CountSqlSource.countPlaceholders("order by ?, '?', \"?\", /* ? */ ?"));
+    Assertions.assertEquals(1,
+        CountSqlSource.countPlaceholders("where data ?? 'a' and data ??| array['b'] and id = ?"));
+  }
+
+}
@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Mapper for {@link DataContextContributorTest}.
+ */
+public interface DataContextContributorMapper {
+  @Lang(DataContextContributorTest.ContributingLanguageDriver.class)
+  @Select("select * from names where lastName = <@p value=family/> and firstName <> <@p value=family/> and id = 4")
+  Name findByFamily();
+
+  @Lang(DataContextContributorTest.ContributingLanguageDriver.class)
+  @Select("select * from names where lastName = <@p value=family/> and id = <@p value=id/>")
+  Name findByFamilyAndId(@Param("family") String family, @Param("id") int id);
+
+  @Lang(DataContextContributorTest.ContributingLanguageDriver.class)
+  @Select("select * from names where id = <@p value=id/>")
+  Name findById(@Param("id") int id);
+
+  @Lang(DataContextContributorTest.ContributingLanguageDriver.class)
+  @Select("select * from names where id = <@p value=id/> <#if nothing??>and 1 = 0</#if>")
+  Name findByIdUsingNullContributor(NameParam param);
+}
@@ -0,0 +1,158 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link DataContextContributor}.
+ */
+class DataContextContributorTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:data-context-contributor");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(DataContextContributorMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @BeforeEach
+  void resetCount() {
+    FamilyContributor.COUNT.set(0);
+  }
+
+  @Test
+  void testContributedOnceOnDemand() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Name name = sqlSession.getMapper(DataContextContributorMapper.class).findByFamily();
+      Assertions.assertEquals("Barney", name.getFirstName());
+      Assertions.assertEquals(1, FamilyContributor.COUNT.get());
+    }
+  }
+
+  @Test
+  void testNotContributedIfNotUsed() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Name name = sqlSession.getMapper(DataContextContributorMapper.class).findById(2);
+      Assertions.assertEquals("Wilma", name.getFirstName());
+      Assertions.assertEquals(0, FamilyContributor.COUNT.get());
+    }
+  }
+
+  @Test
+  void testParameterHasPriority() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Name name = sqlSession.getMapper(DataContextContributorMapper.class).findByFamilyAndId("Flintstone", 3);
+      Assertions.assertEquals("Pebbles", name.getFirstName());
+      Assertions.assertEquals(0, FamilyContributor.COUNT.get());
+    }
+  }
+
+  @Test
+  void testNullContributedWithParamsObject() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Name name = sqlSession.getMapper(DataContextContributorMapper.class)
+          .findByIdUsingNullContributor(new NameParam(1));
+      Assertions.assertEquals("Fred", name.getFirstName());
+    }
+  }
+
+  @Test
+  void testConfigureByProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("data-context-contributors",
+        FamilyContributor.class.getName() + ", " + NothingContributor.class.getName());
+    FreeMarkerLanguageDriverConfig config = FreeMarkerLanguageDriverConfig.newInstance(properties);
+    Assertions.assertEquals(2, config.getDataContextContributors().size());
+    Assertions.assertInstanceOf(FamilyContributor.class, config.getDataContextContributors().get(0));
+    Assertions.assertInstanceOf(NothingContributor.class, config.getDataContextContributors().get(1));
+  }
+
+  public static class ContributingLanguageDriver extends FreeMarkerLanguageDriver {
+    public ContributingLanguageDriver() {
+      super(FreeMarkerLanguageDriverConfig.newInstance((FreeMarkerLanguageDriverConfig config) -> config
+          .getDataContextContributors().addAll(Arrays.asList(new FamilyContributor(), new NothingContributor()))));
+    }
+  }
+
+  public static class FamilyContributor implements DataContextContributor {
+    static final AtomicInteger COUNT = new AtomicInteger();
+
+    @Override
+    public String getKey() {
+      return "family";
+    }
+
+    @Override
+    public Object contribute(Object parameterObject) {
+      COUNT.incrementAndGet();
+      return "Rubble";
+    }
+  }
+
+  public static class NothingContributor implements DataContextContributor {
+    @Override
+    public String getKey() {
+      return "nothing";
+    }
+
+    @Override
+    public Object contribute(Object parameterObject) {
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import freemarker.template.Template;
+
+/**
+ * Test for {@link WhereDirective}, {@link SetDirective} and {@link TrimDirective}.
+ */
+class DynamicClauseDirectivesTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:dynamic-clause");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(DynamicClauseMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testWhere() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      DynamicClauseMapper mapper = sqlSession.getMapper(DynamicClauseMapper.class);
+      Assertions.assertEquals(5, mapper.findByConditions(null, null).size());
+      Assertions.assertEquals(2, mapper.findByConditions(null, "Rubble").size());
+      List<Name> names = mapper.findByConditions("Betty", "Rubble");
+      Assertions.assertEquals(1, names.size());
+      Assertions.assertEquals(5, names.get(0).getId());
+    }
+  }
+
+  @Test
+  void testSet() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      DynamicClauseMapper mapper = sqlSession.getMapper(DynamicClauseMapper.class);
+      Name name = new Name();
+      name.setId(3);
+      name.setFirstName("Pebbles2");
+      Assertions.assertEquals(1, mapper.update(name));
+      Name loadedName = mapper.findById(3);
+      Assertions.assertEquals("Pebbles2", loadedName.getFirstName());
+      Assertions.assertEquals("Flintstone", loadedName.getLastName());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  void testTrim() throws Exception {
+    freemarker.template.Configuration cfg = new freemarker.template.Configuration(
+        freemarker.template.Configuration.VERSION_2_3_22);
+    Map<String, Object> model = new HashMap<>();
+    model.put(TrimDirective.DEFAULT_KEY, new TrimDirective());
+    model.put(WhereDirective.DEFAULT_KEY, new WhereDirective());
+    model.put(SetDirective.DEFAULT_KEY, new SetDirective());
+
+    Assertions.assertEquals("( a, b )",
+        render(cfg, model, "<@trim prefix='(' suffix=')' prefixOverrides=', ' suffixOverrides=','>  , a, b,  </@trim>"));
+    Assertions.assertEquals("", render(cfg, model, "<@trim prefix='WHERE'>  </@trim>"));
+    Assertions.assertEquals("WHERE a = 1", render(cfg, model, "<@where>\n  or a = 1\n</@where>"));
+    Assertions.assertEquals("WHERE orders = 1", render(cfg, model, "<@where> orders = 1</@where>"));
+    Assertions.assertEquals("WHERE a = 1 AND b = 2",
+        render(cfg, model, "<@where><@trim suffixOverrides='AND'>AND a = 1 AND b = 2 AND</@trim></@where>"));
+    Assertions.assertEquals("SET a = 1, b = 2", render(cfg, model, "<@set>a = 1, b = 2, </@set>"));
+  }
+
+  private static String render(freemarker.template.Configuration cfg, Map<String, Object> model, String source)
+      throws Exception {
+    StringWriter writer = new StringWriter();
+    new Template(null, new StringReader(source), cfg).process(model, writer);
+    return writer.toString();
+  }
+
+}
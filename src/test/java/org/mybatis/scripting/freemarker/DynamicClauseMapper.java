@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * Mapper for {@link DynamicClauseDirectivesTest}.
+ */
+public interface DynamicClauseMapper {
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names <@where>"
+      + " <#if firstName??>and firstName = <@p name='firstName'/></#if>"
+      + " <#if lastName??>AND lastName = <@p name='lastName'/></#if>" + " </@where> order by id")
+  List<Name> findByConditions(@Param("firstName") String firstName, @Param("lastName") String lastName);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Update("update names <@set>" + " <#if firstName??>firstName = <@p name='firstName'/>,</#if>"
+      + " <#if lastName??>lastName = <@p name='lastName'/>,</#if>" + " </@set> where id = <@p name='id'/>")
+  int update(Name name);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where id = <@p name='id'/>")
+  Name findById(@Param("id") int id);
+}
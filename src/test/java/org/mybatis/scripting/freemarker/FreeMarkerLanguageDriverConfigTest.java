@@ -139,6 +139,39 @@ class FreeMarkerLanguageDriverConfigTest {
     Assertions.assertEquals("sql", config.getTemplateFile().getBaseDir());
   }
 
+  @Test
+  void objectWrapperFollowsFreemarkerSettings() {
+    // The default object wrapper of FreeMarker is kept by default
+    Assertions.assertFalse(new FreeMarkerLanguageDriver().freemarkerCfg.getObjectWrapper() instanceof ParamObjectWrapper);
+
+    FreeMarkerLanguageDriver driver = new FreeMarkerLanguageDriver(FreeMarkerLanguageDriverConfig.newInstance(c -> {
+      c.setParamObjectWrapperEnabled(true);
+      c.getFreemarkerSettings().put("incompatible_improvements", "2.3.32");
+    }));
+    Assertions.assertEquals(freemarker.template.Configuration.VERSION_2_3_32,
+        driver.freemarkerCfg.getIncompatibleImprovements());
+    // The default object wrapper is created with the version of setting
+    ParamObjectWrapper objectWrapper = (ParamObjectWrapper) driver.freemarkerCfg.getObjectWrapper();
+    Assertions.assertEquals(
+        new ParamObjectWrapper(freemarker.template.Configuration.VERSION_2_3_32).getIncompatibleImprovements(),
+        objectWrapper.getIncompatibleImprovements());
+
+    // The object wrapper of setting is not replaced
+    driver = new FreeMarkerLanguageDriver(FreeMarkerLanguageDriverConfig.newInstance(c -> {
+      c.setParamObjectWrapperEnabled(true);
+      c.getFreemarkerSettings().put("object_wrapper", "DefaultObjectWrapper(2.3.21)");
+    }));
+    Assertions.assertFalse(driver.freemarkerCfg.getObjectWrapper() instanceof ParamObjectWrapper);
+  }
+
+  @Test
+  void paramObjectWrapperEnabledByProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("param-object-wrapper-enabled", "true");
+    Assertions.assertTrue(FreeMarkerLanguageDriverConfig.newInstance(properties).isParamObjectWrapperEnabled());
+    Assertions.assertFalse(FreeMarkerLanguageDriverConfig.newInstance(new Properties()).isParamObjectWrapperEnabled());
+  }
+
   @Test
   void createSqlSourceXNodeException() throws DOMException, ParserConfigurationException, IOException {
     FreeMarkerLanguageDriver driver = new FreeMarkerLanguageDriver();
@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MemoDirective}.
+ */
+class MemoDirectiveTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:memo");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(MemoMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testMemoizedWithinRendering() {
+    ColumnsHelper helper = new ColumnsHelper();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Name> names = sqlSession.getMapper(MemoMapper.class).findTwice(helper, 1);
+      Assertions.assertEquals(2, names.size());
+      Assertions.assertEquals("Fred", names.get(0).getFirstName());
+      Assertions.assertEquals("Wilma", names.get(1).getFirstName());
+    }
+    Assertions.assertEquals(1, helper.count);
+  }
+
+  @Test
+  void testGeneratedParamsAreShared() {
+    Map<String, Object> params = new HashMap<>();
+    params.put("helper", new ColumnsHelper());
+    params.put("id", 1);
+    BoundSql boundSql = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(MemoMapper.class.getName() + ".findTwice").getBoundSql(params);
+    Assertions.assertEquals(
+        "select id, firstName, lastName from names where id = ?"
+            + " union all select id, firstName, lastName from names where id = ? + 1",
+        boundSql.getSql());
+    Assertions.assertEquals(2, boundSql.getParameterMappings().size());
+    Assertions.assertEquals("_p0", boundSql.getParameterMappings().get(0).getProperty());
+    Assertions.assertEquals("_p0", boundSql.getParameterMappings().get(1).getProperty());
+  }
+
+  @Test
+  void testNotSharedBetweenRenderings() {
+    ColumnsHelper helper = new ColumnsHelper();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      MemoMapper mapper = sqlSession.getMapper(MemoMapper.class);
+      Assertions.assertEquals("Fred", mapper.findTwice(helper, 1).get(0).getFirstName());
+      Assertions.assertEquals("Pebbles", mapper.findTwice(helper, 3).get(0).getFirstName());
+    }
+    Assertions.assertEquals(2, helper.count);
+  }
+
+  @Test
+  void testWithoutBody() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      MemoMapper mapper = sqlSession.getMapper(MemoMapper.class);
+      PersistenceException e = Assertions.assertThrows(PersistenceException.class, () -> mapper.findWithoutBody(1));
+      Assertions.assertTrue(e.getMessage().contains("The body is required at the first call for the key. key:[id]"),
+          e::getMessage);
+    }
+  }
+
+  public static class ColumnsHelper {
+    private int count;
+
+    public String columns() {
+      count++;
+      return "id, firstName, lastName";
+    }
+  }
+
+}
@@ -0,0 +1,37 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Mapper for {@link MemoDirectiveTest}.
+ */
+public interface MemoMapper {
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select <@memo key='columns'>${helper.columns()}</@memo> from names"
+      + " where id = <@memo key='id'><@p value=id/></@memo>"
+      + " union all select <@memo key='columns'/> from names where id = <@memo key='id'/> + 1")
+  List<Name> findTwice(@Param("helper") MemoDirectiveTest.ColumnsHelper helper, @Param("id") int id);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where id = <@memo key='id'/>")
+  List<Name> findWithoutBody(@Param("id") int id);
+}
@@ -21,7 +21,9 @@ import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import freemarker.ext.util.WrapperTemplateModel;
 import freemarker.template.Configuration;
+import freemarker.template.TemplateMethodModelEx;
 import freemarker.template.TemplateModel;
 import freemarker.template.TemplateModelException;
 
@@ -91,4 +93,34 @@ class ParamObjectAdapterTest {
 
     Assertions.assertNull(adapter.get("doesNotExist"));
   }
+
+  @Test
+  void propertyAccessorsAreBuiltForPublicGetters() {
+    PropertyAccessors accessors = PropertyAccessors.forClass(PreparedParam.class);
+
+    Assertions.assertSame(accessors, PropertyAccessors.forClass(PreparedParam.class));
+    Assertions.assertTrue(accessors.hasGetter("innerObject"));
+    Assertions.assertTrue(accessors.hasGetter("nullValue"));
+    Assertions.assertFalse(accessors.hasGetter("class"));
+    Assertions.assertFalse(PropertyAccessors.forClass(String.class).hasGetter("bytes"));
+  }
+
+  @Test
+  void getReadsPropertyViaAccessors() throws TemplateModelException {
+    PreparedParam param = new PreparedParam();
+    ParamObjectAdapter adapter = new ParamObjectAdapter(param, new ArrayList<>(), Configuration.VERSION_2_3_22);
+
+    TemplateModel model = adapter.get("innerObject");
+    Assertions.assertInstanceOf(WrapperTemplateModel.class, model);
+    Assertions.assertSame(param.getInnerObject(), ((WrapperTemplateModel) model).getWrappedObject());
+    Assertions.assertNull(adapter.get("nullValue"));
+  }
+
+  @Test
+  void getFallsBackToBeanModelForMethods() throws TemplateModelException {
+    ParamObjectAdapter adapter = new ParamObjectAdapter(new PreparedParam(), new ArrayList<>(),
+        Configuration.VERSION_2_3_22);
+
+    Assertions.assertInstanceOf(TemplateMethodModelEx.class, adapter.get("getInnerObject"));
+  }
 }
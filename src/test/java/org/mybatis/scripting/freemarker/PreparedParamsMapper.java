@@ -32,11 +32,11 @@ public interface PreparedParamsMapper {
   List<Name> findByNames(@Param("ids") List<String> ids);
 
   /**
-   * This is doesn't work - because params objects are unsupported when using auto-generated prepared parameters (it is
-   * impossible to add parameters to MyBatis engine). This call will throw exception.
+   * Auto-generated prepared parameters can be used with params object too, because they are passed to MyBatis engine
+   * as additional parameters.
    */
   @Lang(FreeMarkerLanguageDriver.class)
-  @Select("prepared.ftl")
+  @Select("preparedObject.ftl")
   Name findUsingParamsObject(PreparedParam param);
 
   @Lang(FreeMarkerLanguageDriver.class)
@@ -59,4 +59,17 @@ public interface PreparedParamsMapper {
   @Select("preparedNullValue.ftl")
   Name findUsingNullValue(@Param("nullParam") String nullParam);
 
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("preparedNullTyped.ftl")
+  Name findUsingTypedNullValue(@Param("nullParam") String nullParam);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("preparedInline.ftl")
+  Name findUsingInlineValues(@Param("id") int id, @Param("lastName") LastName lastName,
+      @Param("flag") boolean flag);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("preparedInlineString.ftl")
+  Name findUsingInlineString(@Param("name") String name);
+
 }
@@ -16,25 +16,35 @@
 package org.mybatis.scripting.freemarker;
 
 import java.io.Reader;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
 import org.apache.ibatis.transaction.TransactionFactory;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.StringTypeHandler;
 import org.hsqldb.jdbc.JDBCDataSource;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import freemarker.template.TemplateModelException;
+
 /**
  * Test of using FreeMarker to generate prepared statements parameters.
  *
@@ -89,14 +99,31 @@ class PreparedParamsTest {
     }
   }
 
-  /**
-   * PersistenceException will be thrown with cause of UnsupportedOperationException
-   */
   @Test
   void testParamsObjectCall() {
     try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
-      final PreparedParamsMapper mapper = sqlSession.getMapper(PreparedParamsMapper.class);
-      Assertions.assertThrows(PersistenceException.class, () -> mapper.findUsingParamsObject(new PreparedParam()));
+      PreparedParamsMapper mapper = sqlSession.getMapper(PreparedParamsMapper.class);
+      Name name = mapper.findUsingParamsObject(new PreparedParam());
+      Assertions.assertTrue(name != null && name.getFirstName().equals("Wilma"));
+    }
+  }
+
+  @Test
+  void testParamsMapIsNotModified() {
+    Map<String, Object> params = new HashMap<>();
+    params.put("ids", Arrays.asList("Wilma", "Pebbles"));
+    BoundSql boundSql = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(PreparedParamsMapper.class.getName() + ".findByNames").getBoundSql(params);
+    Assertions.assertEquals(1, params.size());
+    Assertions.assertEquals("Wilma", boundSql.getAdditionalParameter("_p0"));
+    Assertions.assertEquals("Pebbles", boundSql.getAdditionalParameter("_p1"));
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      for (int i = 0; i < 2; i++) {
+        List<Name> names = sqlSession.selectList(PreparedParamsMapper.class.getName() + ".findByNames", params);
+        Assertions.assertEquals(2, names.size());
+        Assertions.assertEquals(1, params.size());
+      }
     }
   }
 
@@ -154,4 +181,81 @@ class PreparedParamsTest {
     }
   }
 
+  @Test
+  void testTypedNullValueCall() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      PreparedParamsMapper mapper = sqlSession.getMapper(PreparedParamsMapper.class);
+      Name name = mapper.findUsingTypedNullValue(null);
+      Assertions.assertNotNull(name);
+      Assertions.assertEquals("Wilma", name.getFirstName());
+    }
+    Map<String, Object> params = new HashMap<>();
+    params.put("nullParam", null);
+    List<ParameterMapping> parameterMappings = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(PreparedParamsMapper.class.getName() + ".findUsingTypedNullValue").getBoundSql(params)
+        .getParameterMappings();
+    Assertions.assertEquals(2, parameterMappings.size());
+    Assertions.assertEquals(String.class, parameterMappings.get(0).getJavaType());
+    Assertions.assertEquals(JdbcType.VARCHAR, parameterMappings.get(0).getJdbcType());
+    Assertions.assertTrue(parameterMappings.get(0).getTypeHandler() instanceof StringTypeHandler);
+    Assertions.assertEquals(JdbcType.INTEGER, parameterMappings.get(1).getJdbcType());
+  }
+
+  @Test
+  void testParamExpression() throws Exception {
+    Assertions.assertEquals("#{_p0}", MyBatisParamDirective.toParamExpression("_p0", null, null, null));
+    Assertions.assertEquals("#{_p0,javaType=java.lang.Integer}",
+        MyBatisParamDirective.toParamExpression("_p0", 1, null, null));
+    Assertions.assertEquals("#{_p0,javaType=org.mybatis.scripting.freemarker.LastName}",
+        MyBatisParamDirective.toParamExpression("_p0", LastName.Rubble, null, null));
+    Assertions.assertEquals("#{_p0,javaType=java.time.LocalDate,jdbcType=DATE}",
+        MyBatisParamDirective.toParamExpression("_p0", null, "java.time.LocalDate", null));
+    Assertions.assertEquals("#{_p0,javaType=int,jdbcType=INTEGER}",
+        MyBatisParamDirective.toParamExpression("_p0", null, "int", null));
+    Assertions.assertEquals("#{_p0,javaType=com.example.Unknown}",
+        MyBatisParamDirective.toParamExpression("_p0", null, "com.example.Unknown", null));
+    Assertions.assertEquals("#{_p0,javaType=java.lang.String,jdbcType=CLOB}",
+        MyBatisParamDirective.toParamExpression("_p0", "a", null, "CLOB"));
+    Assertions.assertThrows(TemplateModelException.class,
+        () -> MyBatisParamDirective.toParamExpression("_p0", null, null, "UNKNOWN"));
+  }
+
+  @Test
+  void testInlineValuesCall() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      PreparedParamsMapper mapper = sqlSession.getMapper(PreparedParamsMapper.class);
+      Name name = mapper.findUsingInlineValues(4, LastName.Rubble, true);
+      Assertions.assertNotNull(name);
+      Assertions.assertEquals("Barney", name.getFirstName());
+    }
+    Map<String, Object> params = new HashMap<>();
+    params.put("id", 4);
+    params.put("lastName", LastName.Rubble);
+    params.put("flag", true);
+    BoundSql boundSql = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(PreparedParamsMapper.class.getName() + ".findUsingInlineValues").getBoundSql(params);
+    Assertions.assertTrue(boundSql.getSql().contains("where id = 4\nand lastName = 'Rubble'\nand TRUE = TRUE"));
+    Assertions.assertTrue(boundSql.getParameterMappings().isEmpty());
+  }
+
+  @Test
+  void testInlineStringCall() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      final PreparedParamsMapper mapper = sqlSession.getMapper(PreparedParamsMapper.class);
+      PersistenceException ex = Assertions.assertThrows(PersistenceException.class,
+          () -> mapper.findUsingInlineString("' or 1 = 1 --"));
+      Assertions.assertTrue(ex.getMessage().contains("is not allowed to inline"));
+    }
+  }
+
+  @Test
+  void testInlineLiteral() throws Exception {
+    Assertions.assertEquals("NULL", MyBatisParamDirective.toInlineLiteral(null, null));
+    Assertions.assertEquals("FALSE", MyBatisParamDirective.toInlineLiteral(false, "postgresql"));
+    Assertions.assertEquals("0", MyBatisParamDirective.toInlineLiteral(false, "oracle"));
+    Assertions.assertEquals("100", MyBatisParamDirective.toInlineLiteral(new BigDecimal("1E+2"), null));
+    Assertions.assertEquals("-12", MyBatisParamDirective.toInlineLiteral(-12L, null));
+    Assertions.assertThrows(TemplateModelException.class, () -> MyBatisParamDirective.toInlineLiteral(1.5d, null));
+  }
+
 }
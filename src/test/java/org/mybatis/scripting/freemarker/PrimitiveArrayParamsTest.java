@@ -0,0 +1,214 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.apache.ibatis.type.JdbcType;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import freemarker.template.TemplateNumberModel;
+import freemarker.template.TemplateSequenceModel;
+
+/**
+ * Test for primitive array parameters ({@link PrimitiveArrayModel} and {@code values} attribute of {@code <@p>}).
+ */
+class PrimitiveArrayParamsTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:primitive-array-params");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(PrimitiveArrayMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testListIntArray() {
+    int[] ids = { 5, 1, 3 };
+    BoundSql boundSql = getBoundSql("findByIntIds", ids);
+    Assertions.assertEquals("select * from names where id in (?, ?, ?) order by id", boundSql.getSql());
+    Assertions.assertSame(ids, boundSql.getAdditionalParameter("_p0"));
+    Assertions.assertEquals(5, boundSql.getAdditionalParameter("_p0[0]"));
+    // The element is declared as the wrapper type of array component
+    Assertions.assertEquals(Integer.class, boundSql.getParameterMappings().get(0).getJavaType());
+    Assertions.assertEquals(JdbcType.INTEGER, boundSql.getParameterMappings().get(0).getJdbcType());
+    Assertions.assertFalse(boundSql.hasAdditionalParameter("_p1"));
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Name> names = sqlSession.getMapper(PrimitiveArrayMapper.class).findByIntIds(ids);
+      Assertions.assertEquals(3, names.size());
+      Assertions.assertEquals(1, names.get(0).getId());
+      Assertions.assertEquals(5, names.get(2).getId());
+    }
+  }
+
+  @Test
+  void testBeanProperty() {
+    IdsParam param = new IdsParam();
+    param.setIds(new int[] { 4, 2 });
+    BoundSql boundSql = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(PrimitiveArrayMapper.class.getName() + ".findByBean").getBoundSql(param);
+    // The property of bean is wrapped as same as the value of map
+    Assertions.assertEquals("select * from names where id in (?, ?) order by id", boundSql.getSql());
+    Assertions.assertSame(param.getIds(), boundSql.getAdditionalParameter("_p0"));
+    Assertions.assertFalse(boundSql.hasAdditionalParameter("_p1"));
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Name> names = sqlSession.getMapper(PrimitiveArrayMapper.class).findByBean(param);
+      Assertions.assertEquals(2, names.size());
+      Assertions.assertEquals("Wilma", names.get(0).getFirstName());
+      Assertions.assertEquals("Barney", names.get(1).getFirstName());
+    }
+  }
+
+  @Test
+  void testBeanPropertyMethodCall() {
+    IdsParam param = new IdsParam();
+    param.setIds(new int[] { 1 });
+    param.setName("Fred");
+    param.setNames(Arrays.asList("Fred", "Wilma"));
+    param.setAliases(Collections.singletonMap("f", "Fred"));
+    // The other properties than primitive arrays are wrapped with BeansWrapper as before
+    BoundSql boundSql = new FreeMarkerLanguageDriver().createSqlSource(new Configuration(),
+        "select ${name.length()}, ${names.size()}, '${aliases.get('f')}', ${ids?size}", null).getBoundSql(param);
+    Assertions.assertEquals("select 4, 2, 'Fred', 1", boundSql.getSql());
+  }
+
+  @Test
+  void testValuesLongArray() {
+    long[] ids = { 2, 4 };
+    BoundSql boundSql = getBoundSql("findByLongIds", ids);
+    Assertions.assertEquals("select * from names where id in (?, ?) order by id", boundSql.getSql());
+    Assertions.assertSame(ids, boundSql.getAdditionalParameter("_p0"));
+    Assertions.assertEquals(Long.class, boundSql.getParameterMappings().get(1).getJavaType());
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Name> names = sqlSession.getMapper(PrimitiveArrayMapper.class).findByLongIds(ids);
+      Assertions.assertEquals(2, names.size());
+      Assertions.assertEquals("Wilma", names.get(0).getFirstName());
+      Assertions.assertEquals("Barney", names.get(1).getFirstName());
+    }
+  }
+
+  @Test
+  void testValuesList() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Name> names = sqlSession.getMapper(PrimitiveArrayMapper.class).findByIdList(Arrays.asList(3, 1));
+      Assertions.assertEquals(2, names.size());
+      Assertions.assertEquals(1, names.get(0).getId());
+      Assertions.assertEquals(3, names.get(1).getId());
+    }
+  }
+
+  @Test
+  void testPrimitiveArrayModel() throws Exception {
+    long[] values = { 10L, 20L };
+    TemplateSequenceModel model = (TemplateSequenceModel) new ParamObjectWrapper(
+        freemarker.template.Configuration.VERSION_2_3_22).wrap(values);
+
+    Assertions.assertInstanceOf(PrimitiveArrayModel.class, model);
+    Assertions.assertEquals(2, model.size());
+    Assertions.assertEquals(20L, ((TemplateNumberModel) model.get(1)).getAsNumber());
+    Assertions.assertEquals(1, ((PrimitiveArrayModel.ElementModel) model.get(1)).getIndex());
+    Assertions.assertNull(model.get(2));
+    Assertions.assertNull(PrimitiveArrayModel.of(new double[0]));
+  }
+
+  private BoundSql getBoundSql(String statementId, Object ids) {
+    return sqlSessionFactory.getConfiguration()
+        .getMappedStatement(PrimitiveArrayMapper.class.getName() + "." + statementId)
+        .getBoundSql(Collections.singletonMap("ids", ids));
+  }
+
+  public static class IdsParam {
+    private int[] ids;
+    private String name;
+    private List<String> names;
+    private Map<String, String> aliases;
+
+    public int[] getIds() {
+      return ids;
+    }
+
+    public void setIds(int[] ids) {
+      this.ids = ids;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public List<String> getNames() {
+      return names;
+    }
+
+    public void setNames(List<String> names) {
+      this.names = names;
+    }
+
+    public Map<String, String> getAliases() {
+      return aliases;
+    }
+
+    public void setAliases(Map<String, String> aliases) {
+      this.aliases = aliases;
+    }
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Mapper for {@link RecordParamsTest}.
+ */
+public interface RecordParamsMapper {
+  @Lang(ParamObjectWrapperLanguageDriver.class)
+  @Select("select * from names where firstName = <@p value=firstName/> and lastName = <@p value=lastName/>")
+  Name findByRecord(NameRecord name);
+
+  @Lang(ParamObjectWrapperLanguageDriver.class)
+  @Select("select * from names where firstName = <@p value=name.firstName/> and lastName = <@p value=name.lastName/>"
+      + " and firstName || ' ' || lastName = <@p value=name.fullName()/>")
+  Name findByNestedRecord(@Param("name") NameRecord name);
+
+  @Lang(ParamObjectWrapperLanguageDriver.class)
+  @Select("select * from names where firstName = <@p value=name.firstName/> and lastName = <@p value=name.lastName/>")
+  Name findByImmutableMap(@Param("name") Map<String, Object> name);
+}
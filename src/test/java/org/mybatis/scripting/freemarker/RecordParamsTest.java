@@ -0,0 +1,112 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Map;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateScalarModel;
+
+/**
+ * Test for record and immutable map parameters ({@link RecordModel}).
+ */
+class RecordParamsTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:record-params");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(RecordParamsMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testRecordParam() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Name name = sqlSession.getMapper(RecordParamsMapper.class).findByRecord(new NameRecord("Barney", "Rubble"));
+      Assertions.assertEquals(4, name.getId());
+    }
+  }
+
+  @Test
+  void testNestedRecordParam() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Name name = sqlSession.getMapper(RecordParamsMapper.class)
+          .findByNestedRecord(new NameRecord("Betty", "Rubble"));
+      Assertions.assertEquals(5, name.getId());
+    }
+  }
+
+  @Test
+  void testImmutableMapParam() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Name name = sqlSession.getMapper(RecordParamsMapper.class)
+          .findByImmutableMap(Map.of("firstName", "Pebbles", "lastName", "Flintstone"));
+      Assertions.assertEquals(3, name.getId());
+    }
+  }
+
+  @Test
+  void testWrapRecord() throws Exception {
+    NameRecord record = new NameRecord("Fred", "Flintstone");
+    TemplateModel model = new ParamObjectWrapper(freemarker.template.Configuration.VERSION_2_3_22).wrap(record);
+
+    Assertions.assertInstanceOf(RecordModel.class, model);
+    RecordModel recordModel = (RecordModel) model;
+    Assertions.assertEquals("Fred", ((TemplateScalarModel) recordModel.get("firstName")).getAsString());
+    Assertions.assertEquals(2, recordModel.size());
+    Assertions.assertSame(record, recordModel.getWrappedObject());
+    Assertions.assertTrue(PropertyAccessors.forClass(NameRecord.class).isRecord());
+    Assertions.assertFalse(PropertyAccessors.forClass(NameRecord.class).hasGetter("fullName"));
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Mapper for {@link RenderLimitsTest}.
+ */
+public interface RenderLimitsMapper {
+  @Lang(RenderLimitsTest.RenderLimitsLanguageDriver.class)
+  @Select("select * from names where id in (<#list ids as id><@p value=id/><#sep>, </#sep></#list>) order by id")
+  List<Name> findByIds(@Param("ids") List<?> ids);
+
+  @Lang(RenderLimitsTest.RenderLimitsLanguageDriver.class)
+  @Select("select * from names where id in (<@p values=ids/>) order by id")
+  List<Name> findByIdArray(@Param("ids") int[] ids);
+
+  @Lang(RenderLimitsTest.RenderLimitsLanguageDriver.class)
+  @Select("select * from names where id in (<#list ids as id><@p value=id/><#sep>, </#sep></#list>) order by id")
+  List<Name> findByIdElements(@Param("ids") int[] ids);
+
+  @Lang(RenderLimitsTest.RenderLimitsLanguageDriver.class)
+  @Select("select * from names where id in (<@memo key='ids'><@p values=ids/></@memo>)"
+      + " or id in (<@memo key='ids'/>) order by id")
+  List<Name> findByIdsTwice(@Param("ids") List<?> ids);
+
+  @Lang(RenderLimitsTest.RenderLimitsLanguageDriver.class)
+  @Select("select * from names where firstName in (<#list names as name>'${name}'<#sep>, </#sep></#list>)")
+  List<Name> findByNames(@Param("names") List<?> names);
+
+  @Lang(RenderLimitsTest.RenderLimitsLanguageDriver.class)
+  @Insert("insert into names (id, firstName, lastName) values <@rows items=names properties='id, firstName, lastName'/>")
+  int insert(@Param("names") List<Name> names);
+}
@@ -0,0 +1,240 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for the render limits of {@link FreeMarkerSqlSource}.
+ */
+class RenderLimitsTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:render-limits");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(RenderLimitsMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testWithinLimits() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RenderLimitsMapper mapper = sqlSession.getMapper(RenderLimitsMapper.class);
+      Assertions.assertEquals(3, mapper.findByIds(Arrays.asList(1, 2, 3)).size());
+      Assertions.assertEquals(2, mapper.findByNames(Arrays.asList("Fred", "Barney")).size());
+    }
+  }
+
+  @Test
+  void testMaxGeneratedParams() {
+    IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+        () -> getMappedStatement("findByIds").getBoundSql(
+            Collections.singletonMap("ids", IntStream.range(0, 100).boxed().collect(Collectors.toList()))));
+    Assertions.assertEquals("The rendering of statement '" + RenderLimitsMapper.class.getName()
+        + ".findByIds' is aborted. The render limit of generated params is exceeded. limit:10 observed:11",
+        e.getMessage().substring(0, e.getMessage().indexOf(" (")));
+
+    // The parameters generated by other directives are limited too
+    List<Name> names = IntStream.range(0, 4).mapToObj(i -> {
+      Name name = new Name();
+      name.setId(100 + i);
+      name.setFirstName("First" + i);
+      name.setLastName("Last" + i);
+      return name;
+    }).collect(Collectors.toList());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      PersistenceException pe = Assertions.assertThrows(PersistenceException.class,
+          () -> sqlSession.getMapper(RenderLimitsMapper.class).insert(names));
+      Assertions.assertTrue(pe.getCause() instanceof IllegalStateException);
+      // The rows are checked before rendering
+      Assertions.assertTrue(pe.getCause().getMessage().contains(".insert' is aborted. The render limit of generated"
+          + " params is exceeded. limit:10 observed:12"), pe.getCause().getMessage());
+    }
+  }
+
+  @Test
+  void testMaxGeneratedParamsCountsBinds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RenderLimitsMapper mapper = sqlSession.getMapper(RenderLimitsMapper.class);
+      Assertions.assertEquals(5, mapper.findByIdArray(new int[] { 1, 2, 3, 4, 5 }).size());
+      Assertions.assertEquals(5, mapper.findByIdElements(new int[] { 1, 2, 3, 4, 5 }).size());
+      Assertions.assertEquals(5, mapper.findByIdsTwice(Arrays.asList(1, 2, 3, 4, 5)).size());
+    }
+
+    // An array is one generated parameter, but each element is a bind
+    int[] ids = IntStream.range(0, 11).toArray();
+    assertGeneratedParamsExceeded("findByIdArray", ids);
+    assertGeneratedParamsExceeded("findByIdElements", ids);
+    // The replayed text binds the parameters again
+    assertGeneratedParamsExceeded("findByIdsTwice", Arrays.asList(1, 2, 3, 4, 5, 6));
+  }
+
+  private static void assertGeneratedParamsExceeded(String id, Object ids) {
+    IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+        () -> getMappedStatement(id).getBoundSql(Collections.singletonMap("ids", ids)));
+    Assertions.assertTrue(e.getMessage().contains("The render limit of generated params is exceeded. limit:10"),
+        e.getMessage());
+  }
+
+  @Test
+  void testMaxOutputChars() {
+    List<String> names = IntStream.range(0, 100).mapToObj(i -> "Name" + i).collect(Collectors.toList());
+    IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+        () -> getMappedStatement("findByNames").getBoundSql(Collections.singletonMap("names", names)));
+    Assertions.assertTrue(e.getMessage().startsWith("The rendering of statement '"
+        + RenderLimitsMapper.class.getName() + ".findByNames' is aborted. The render limit of output chars"
+        + " is exceeded. limit:1000 observed:"), e.getMessage());
+  }
+
+  @Test
+  void testMaxRenderTime() {
+    List<SlowValue> names = Arrays.asList(new SlowValue("Fred"), new SlowValue("Wilma"), new SlowValue("Barney"));
+    IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+        () -> getMappedStatement("findByNames").getBoundSql(Collections.singletonMap("names", names)));
+    Assertions.assertTrue(e.getMessage().contains("The render limit of render time (ms) is exceeded. limit:50"),
+        e.getMessage());
+  }
+
+  @Test
+  void testMaxRenderTimeOfParallelRows() {
+    FreeMarkerLanguageDriver driver = new FreeMarkerLanguageDriver(
+        FreeMarkerLanguageDriverConfig.newInstance(c -> c.setMaxRenderTimeMillis(50)));
+    SqlSource sqlSource = driver.createSqlSource(sqlSessionFactory.getConfiguration(),
+        "insert into names (firstName) values <@rows items=names properties='name' parallelThreshold=1 chunkSize=1/>",
+        null);
+    AtomicInteger reads = new AtomicInteger();
+    List<SlowValue> names = IntStream.range(0, 2000).mapToObj(i -> new SlowValue("Name" + i, reads))
+        .collect(Collectors.toList());
+    IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+        () -> sqlSource.getBoundSql(Collections.singletonMap("names", names)));
+    Assertions.assertTrue(e.getMessage().contains("The render limit of render time (ms) is exceeded. limit:50"),
+        e.getMessage());
+    // The chunks after the deadline are not rendered
+    Assertions.assertTrue(reads.get() < names.size(), () -> "reads:" + reads.get());
+  }
+
+  @Test
+  void testConfigureByProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("max-output-chars", "1000");
+    properties.setProperty("max-generated-params", "100");
+    properties.setProperty("max-render-time-millis", "500");
+    FreeMarkerLanguageDriverConfig config = FreeMarkerLanguageDriverConfig.newInstance(properties);
+    Assertions.assertEquals(1000, config.getMaxOutputChars());
+    Assertions.assertEquals(100, config.getMaxGeneratedParams());
+    Assertions.assertEquals(500L, config.getMaxRenderTimeMillis());
+    Assertions.assertEquals(0, FreeMarkerLanguageDriverConfig.newInstance(new Properties()).getMaxOutputChars());
+  }
+
+  private static MappedStatement getMappedStatement(String id) {
+    return sqlSessionFactory.getConfiguration().getMappedStatement(RenderLimitsMapper.class.getName() + "." + id);
+  }
+
+  /**
+   * The value that takes time for rendering.
+   */
+  public static class SlowValue {
+    private final String value;
+    private final AtomicInteger reads;
+
+    SlowValue(String value) {
+      this(value, new AtomicInteger());
+    }
+
+    SlowValue(String value, AtomicInteger reads) {
+      this.value = value;
+      this.reads = reads;
+    }
+
+    public String getName() {
+      reads.incrementAndGet();
+      sleep(5);
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      sleep(30);
+      return value;
+    }
+
+    private static void sleep(long millis) {
+      try {
+        Thread.sleep(millis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  public static class RenderLimitsLanguageDriver extends FreeMarkerLanguageDriver {
+    public RenderLimitsLanguageDriver() {
+      super(FreeMarkerLanguageDriverConfig.newInstance((FreeMarkerLanguageDriverConfig config) -> {
+        config.setTemplateCompilation(FreeMarkerLanguageDriverConfig.TemplateCompilation.ENABLED);
+        config.setMaxOutputChars(1000);
+        config.setMaxGeneratedParams(10);
+        config.setMaxRenderTimeMillis(50);
+      }));
+    }
+  }
+
+}
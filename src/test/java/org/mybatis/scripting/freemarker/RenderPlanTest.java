@@ -0,0 +1,216 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import freemarker.template.Template;
+import freemarker.template.TemplateDirectiveModel;
+import freemarker.template.TemplateException;
+
+/**
+ * Test for {@link RenderPlan}.
+ */
+class RenderPlanTest {
+  private static final freemarker.template.Configuration CFG = new freemarker.template.Configuration(
+      freemarker.template.Configuration.VERSION_2_3_22);
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    CFG.setNumberFormat("computer");
+
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:render-plan");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(RenderPlanMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testCompile() throws Exception {
+    Assertions.assertNotNull(compile("<#-- c -->select * from ${table} <#if a?? && !(b!false)>x<#elseif c = 'd'>y</#if>"));
+    Assertions.assertNotNull(compile("<#list xs as x>${x?index}<#sep>,</#list>"));
+    Assertions.assertNull(compile("<#list xs as x>${x_has_next?c}</#list>"));
+    Assertions.assertNull(compile("${name?upper_case}"));
+    Assertions.assertNull(compile("${a + b}"));
+    Assertions.assertNull(compile("<#macro m>x</#macro><@m/>"));
+    Assertions.assertNull(compile("${helper.columns()}"));
+    Assertions.assertNull(compile("${'${x}'}"));
+  }
+
+  @Test
+  void testRenderSameAsInterpreter() throws Exception {
+    String source = "<#assign sep = ', ', t = \"names\">select * from ${t} <@where>"
+        + "<#if name?has_content>name = '${name}'</#if>"
+        + "<#if ids?has_content> and id in (<#list ids as id>${id}<#sep>${sep}</#sep></#list>)"
+        + "<#else> and 1 = 0</#if>"
+        + "<#list tags as tag>${tag?counter}<#if tag?is_first>first</#if><#if tag_has_next>,<#else>.</#if>"
+        + "<#else>no tags</#list>"
+        + "<#if mode == 1 || mode == 'x'!'y'>${missing!'default'}</#if></@where>";
+    Map<String, Object> dataModel = new HashMap<>();
+    dataModel.put("where", new WhereDirective());
+    dataModel.put("ids", Arrays.asList(1, 2L, 3));
+    dataModel.put("tags", Arrays.asList("a", "b"));
+    dataModel.put("mode", 1);
+    assertRenderedSameAsInterpreter(source, dataModel);
+
+    dataModel.put("name", "Fred");
+    dataModel.put("ids", Arrays.asList());
+    dataModel.put("tags", Arrays.asList());
+    dataModel.put("mode", BigDecimal.ONE);
+    assertRenderedSameAsInterpreter(source, dataModel);
+  }
+
+  @Test
+  void testCompareStringsSameAsInterpreter() throws Exception {
+    String source = "<#list names as name><#if name == 'e\u0301'>eq<#elseif name == 'E'>upper<#else>ne</#if>,</#list>";
+    Map<String, Object> dataModel = new HashMap<>();
+    dataModel.put("names", Arrays.asList("\u00e9", "e\u0301", "e", "E"));
+    assertRenderedSameAsInterpreter(source, dataModel);
+  }
+
+  @Test
+  void testFormatValuesSameAsInterpreter() throws Exception {
+    Map<String, Object> dataModel = new HashMap<>();
+    dataModel.put("limit", new BigDecimal("1.5"));
+    dataModel.put("date", Date.valueOf("2026-01-02"));
+    assertRenderedSameAsInterpreter("fetch first ${limit} rows only <#if date == date>${date}</#if>", dataModel);
+    // The missing value in parentheses is allowed
+    assertRenderedSameAsInterpreter("${(a.b)!'x'}<#if (a.b)??>y</#if><#if !(a.b)?has_content>z</#if>", dataModel);
+  }
+
+  @Test
+  void testErrorIsNotRenderedAgain() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Map<String, Object> dataModel = new HashMap<>();
+    dataModel.put("count", (TemplateDirectiveModel) (env, params, loopVars, body) -> calls.incrementAndGet());
+    dataModel.put("flag", true);
+    RenderPlan plan = compile("<@count/>${flag}");
+    Assertions.assertNotNull(plan);
+    Assertions.assertThrows(TemplateException.class, () -> render(plan, dataModel));
+    Assertions.assertThrows(TemplateException.class, () -> render(compile("<@count/>${a.b}"), dataModel));
+    Assertions.assertEquals(2, calls.get());
+  }
+
+  @Test
+  void testVerifyMode() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RenderPlanMapper mapper = sqlSession.getMapper(RenderPlanMapper.class);
+      Assertions.assertEquals(5, mapper.find(null, null).size());
+      List<Name> names = mapper.find("Fred", Arrays.asList(1, 2, 3));
+      Assertions.assertEquals(1, names.size());
+      Assertions.assertEquals("Flintstone", names.get(0).getLastName());
+      Assertions.assertEquals(2, mapper.find(null, Arrays.asList(3, 4)).size());
+    }
+  }
+
+  @Test
+  void testRenderDecimalNumber() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RenderPlanMapper mapper = sqlSession.getMapper(RenderPlanMapper.class);
+      Assertions.assertEquals("Fred", mapper.findWithLimit(1, 1).get(0).getFirstName());
+      // The decimal number is formatted by the number format of FreeMarker
+      Assertions.assertEquals("Fred", mapper.findWithLimit(1, new BigDecimal("1.0")).get(0).getFirstName());
+    }
+  }
+
+  @Test
+  void testConfigureByProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("template-compilation", "verify");
+    Assertions.assertEquals(FreeMarkerLanguageDriverConfig.TemplateCompilation.VERIFY,
+        FreeMarkerLanguageDriverConfig.newInstance(properties).getTemplateCompilation());
+    Assertions.assertEquals(FreeMarkerLanguageDriverConfig.TemplateCompilation.DISABLED,
+        FreeMarkerLanguageDriverConfig.newInstance(new Properties()).getTemplateCompilation());
+  }
+
+  private static void assertRenderedSameAsInterpreter(String source, Map<String, Object> dataModel)
+      throws Exception {
+    Template template = new Template(null, new StringReader(source), CFG);
+    StringWriter expected = new StringWriter();
+    template.process(dataModel, expected);
+    RenderPlan plan = RenderPlan.compile(template);
+    Assertions.assertNotNull(plan);
+    Assertions.assertEquals(expected.toString(), render(plan, template, dataModel));
+  }
+
+  private static RenderPlan compile(String source) throws Exception {
+    return RenderPlan.compile(new Template("test", new StringReader(source), CFG));
+  }
+
+  private static String render(RenderPlan plan, Map<String, Object> dataModel) throws Exception {
+    return render(plan, new Template(null, new StringReader(""), CFG), dataModel);
+  }
+
+  private static String render(RenderPlan plan, Template template, Map<String, Object> dataModel) throws Exception {
+    StringWriter writer = new StringWriter();
+    plan.render(template.createProcessingEnvironment(dataModel, writer));
+    return writer.toString();
+  }
+
+  public static class VerifyingLanguageDriver extends FreeMarkerLanguageDriver {
+    public VerifyingLanguageDriver() {
+      super(FreeMarkerLanguageDriverConfig.newInstance((FreeMarkerLanguageDriverConfig config) -> config
+          .setTemplateCompilation(FreeMarkerLanguageDriverConfig.TemplateCompilation.VERIFY)));
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link RowValueInDirective}.
+ */
+class RowValueInDirectiveTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:row-value-in");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(RowValueInMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testOrGroups() {
+    List<Name> keys = Arrays.asList(name("Fred", "Flintstone"), name("Betty", "Rubble"), name("Betty", "Flintstone"));
+    BoundSql boundSql = getBoundSql("findByKeys", keys);
+    Assertions.assertEquals("select * from names where ((firstName = ? AND lastName = ?)"
+        + " OR (firstName = ? AND lastName = ?) OR (firstName = ? AND lastName = ?)"
+        + " OR (firstName = ? AND lastName = ?)) order by id", boundSql.getSql());
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Name> names = sqlSession.getMapper(RowValueInMapper.class).findByKeys(keys);
+      Assertions.assertEquals(2, names.size());
+      Assertions.assertEquals(1, names.get(0).getId());
+      Assertions.assertEquals(5, names.get(1).getId());
+    }
+  }
+
+  @Test
+  void testRowValueWithChunks() {
+    List<Name> keys = Arrays.asList(name("Fred", "Flintstone"), name("Wilma", "Flintstone"),
+        name("Barney", "Rubble"));
+    BoundSql boundSql = getBoundSql("findByKeysUsingRowValue", keys);
+    Assertions.assertEquals("select * from names where ((firstName, lastName) IN ((?, ?), (?, ?))"
+        + " OR (firstName, lastName) IN ((?, ?))) order by id", boundSql.getSql());
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Name> names = sqlSession.getMapper(RowValueInMapper.class).findByKeysUsingRowValue(keys);
+      Assertions.assertEquals(3, names.size());
+      Assertions.assertEquals(4, names.get(2).getId());
+    }
+  }
+
+  @Test
+  void testSingleColumn() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RowValueInMapper mapper = sqlSession.getMapper(RowValueInMapper.class);
+      Assertions.assertEquals(3, mapper.findByIds(Arrays.asList(1, 3, 5)).size());
+      Assertions.assertTrue(mapper.findByIds(Collections.emptyList()).isEmpty());
+    }
+  }
+
+  private static BoundSql getBoundSql(String method, List<Name> keys) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("keys", keys);
+    return sqlSessionFactory.getConfiguration().getMappedStatement(RowValueInMapper.class.getName() + "." + method)
+        .getBoundSql(params);
+  }
+
+  private static Name name(String firstName, String lastName) {
+    Name name = new Name();
+    name.setFirstName(firstName);
+    name.setLastName(lastName);
+    return name;
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Mapper for {@link RowValueInDirectiveTest}.
+ */
+public interface RowValueInMapper {
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where <@rowIn columns='firstName, lastName' items=keys/> order by id")
+  List<Name> findByKeys(@Param("keys") List<Name> keys);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where <@rowIn columns='firstName, lastName' items=keys rowValue=true chunkSize=2/>"
+      + " order by id")
+  List<Name> findByKeysUsingRowValue(@Param("keys") List<Name> keys);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where <@rowIn columns='id' items=ids/> order by id")
+  List<Name> findByIds(@Param("ids") List<Integer> ids);
+}
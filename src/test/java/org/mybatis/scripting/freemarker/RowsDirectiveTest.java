@@ -0,0 +1,140 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link RowsDirective}.
+ */
+class RowsDirectiveTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:rows");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(RowsMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testSameAsSequentialRendering() {
+    List<Name> names = names(100, 10);
+    BoundSql sequential = getBoundSql("insert", names);
+    BoundSql parallel = getBoundSql("insertInParallel", names);
+    Assertions.assertTrue(sequential.getSql().startsWith("insert into names (id, firstName, lastName) values"
+        + " (?, ?, ?), (?, ?, ?)"), sequential::getSql);
+    Assertions.assertEquals(sequential.getSql(), parallel.getSql());
+    Assertions.assertEquals(30, parallel.getParameterMappings().size());
+    for (int i = 0; i < 30; i++) {
+      Assertions.assertEquals("_p" + i, parallel.getParameterMappings().get(i).getProperty());
+      Assertions.assertEquals(sequential.getAdditionalParameter("_p" + i), parallel.getAdditionalParameter("_p" + i));
+    }
+    Assertions.assertEquals("First109", parallel.getAdditionalParameter("_p28"));
+  }
+
+  @Test
+  void testInsertInParallel() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RowsMapper mapper = sqlSession.getMapper(RowsMapper.class);
+      Assertions.assertEquals(10, mapper.insertInParallel(names(200, 10)));
+      List<Name> names = mapper.findByIds(Arrays.asList(200, 205, 209));
+      Assertions.assertEquals(3, names.size());
+      Assertions.assertEquals("First205", names.get(1).getFirstName());
+      Assertions.assertEquals("Last209", names.get(2).getLastName());
+      sqlSession.rollback(true);
+    }
+  }
+
+  @Test
+  void testEmptyItems() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RowsMapper mapper = sqlSession.getMapper(RowsMapper.class);
+      PersistenceException e = Assertions.assertThrows(PersistenceException.class,
+          () -> mapper.insert(Collections.emptyList()));
+      Assertions.assertTrue(e.getMessage().contains("The 'items' attribute should not be empty."), e::getMessage);
+    }
+  }
+
+  @Test
+  void testRejectBody() {
+    SqlSource sqlSource = new FreeMarkerLanguageDriver().createSqlSource(sqlSessionFactory.getConfiguration(),
+        "insert into names (id) values <@rows items=ids>(${id})</@rows>", null);
+    RuntimeException e = Assertions.assertThrows(RuntimeException.class,
+        () -> sqlSource.getBoundSql(Collections.singletonMap("ids", Arrays.asList(1, 2))));
+    Assertions.assertTrue(e.getMessage().contains("The @rows directive does not accept a body."), e::getMessage);
+  }
+
+  private static BoundSql getBoundSql(String id, List<Name> names) {
+    return sqlSessionFactory.getConfiguration().getMappedStatement(RowsMapper.class.getName() + "." + id)
+        .getBoundSql(Collections.singletonMap("names", names));
+  }
+
+  private static List<Name> names(int firstId, int size) {
+    List<Name> names = new ArrayList<>();
+    for (int i = firstId; i < firstId + size; i++) {
+      Name name = new Name();
+      name.setId(i);
+      name.setFirstName("First" + i);
+      name.setLastName("Last" + i);
+      names.add(name);
+    }
+    return names;
+  }
+
+}
@@ -0,0 +1,42 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Mapper for {@link RowsDirectiveTest}.
+ */
+public interface RowsMapper {
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Insert("insert into names (id, firstName, lastName) values"
+      + " <@rows items=names properties='id, firstName, lastName'/>")
+  int insert(@Param("names") List<Name> names);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Insert("insert into names (id, firstName, lastName) values"
+      + " <@rows items=names properties='id, firstName, lastName' parallelThreshold=1 chunkSize=3/>")
+  int insertInParallel(@Param("names") List<Name> names);
+
+  @Lang(FreeMarkerLanguageDriver.class)
+  @Select("select * from names where id in (<@rows items=ids parallelThreshold=1 chunkSize=1/>) order by id")
+  List<Name> findByIds(@Param("ids") List<Integer> ids);
+}
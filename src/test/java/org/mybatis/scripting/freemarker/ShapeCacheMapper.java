@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Mapper for {@link ShapeCacheTest}.
+ */
+public interface ShapeCacheMapper {
+  @Lang(ShapeCacheTest.ShapeCacheLanguageDriver.class)
+  @Select("select * from names <@where><#if firstName?has_content>firstName = <@p value=firstName/></#if>"
+      + "<#if lastName??> and lastName = <@p value=lastName/></#if>"
+      + "<#if ids?has_content> and id in (<#list ids as id><@p value=id/><#sep>, </#sep></#list>)</#if>"
+      + "</@where> order by id")
+  List<Name> find(@Param("firstName") String firstName, @Param("lastName") String lastName,
+      @Param("ids") List<?> ids);
+
+  @Lang(ShapeCacheTest.ShapeCacheLanguageDriver.class)
+  @Select("select * from names where id = <@memo key='id'><@p value=id/></@memo>")
+  List<Name> findWithMemo(@Param("id") int id);
+
+  @Lang(ShapeCacheTest.ShapeCacheLanguageDriver.class)
+  @Select("select * from names order by id")
+  List<Name> findAll();
+}
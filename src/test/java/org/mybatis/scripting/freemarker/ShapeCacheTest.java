@@ -0,0 +1,188 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for the shape cache of {@link FreeMarkerSqlSource}.
+ */
+class ShapeCacheTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:shape-cache");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(ShapeCacheMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testReuseSameShape() {
+    MappedStatement statement = getMappedStatement("find");
+    BoundSql first = statement.getBoundSql(params("Fred", null, Arrays.asList(1, 2)));
+    BoundSql second = statement.getBoundSql(params("Wilma", null, Arrays.asList(3, 4)));
+    Assertions.assertEquals("select * from names WHERE firstName = ? and id in (?, ?) order by id", first.getSql());
+    Assertions.assertSame(first.getParameterMappings(), second.getParameterMappings());
+    Assertions.assertEquals("Wilma", second.getAdditionalParameter("_p0"));
+    Assertions.assertEquals(4, second.getAdditionalParameter("_p2"));
+
+    // The different number of iterations (or the type of value) is the different shape
+    BoundSql third = statement.getBoundSql(params("Fred", null, Arrays.asList(1, 2, 3)));
+    Assertions.assertEquals("select * from names WHERE firstName = ? and id in (?, ?, ?) order by id", third.getSql());
+    BoundSql fourth = statement.getBoundSql(params("Fred", null, Arrays.asList(1L, 2L)));
+    Assertions.assertNotSame(first.getParameterMappings(), fourth.getParameterMappings());
+    Assertions.assertEquals(Long.class, fourth.getParameterMappings().get(1).getJavaType());
+  }
+
+  @Test
+  void testQueryWithShapes() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      ShapeCacheMapper mapper = sqlSession.getMapper(ShapeCacheMapper.class);
+      Assertions.assertEquals(5, mapper.find(null, null, null).size());
+      Assertions.assertEquals(3, mapper.find(null, "Flintstone", null).size());
+      Assertions.assertEquals(2, mapper.find(null, "Rubble", null).size());
+      Assertions.assertEquals("Pebbles", mapper.find(null, "Flintstone", Arrays.asList(3, 4)).get(0).getFirstName());
+      Assertions.assertEquals("Barney", mapper.find(null, "Rubble", Arrays.asList(3, 4)).get(0).getFirstName());
+      Assertions.assertEquals(0, mapper.find("Betty", "Flintstone", null).size());
+    }
+  }
+
+  @Test
+  void testNotCachedForOtherDirectives() {
+    MappedStatement statement = getMappedStatement("findWithMemo");
+    BoundSql first = statement.getBoundSql(Collections.singletonMap("id", 1));
+    BoundSql second = statement.getBoundSql(Collections.singletonMap("id", 2));
+    Assertions.assertNotSame(first.getParameterMappings(), second.getParameterMappings());
+    Assertions.assertEquals(2, second.getAdditionalParameter("_p0"));
+  }
+
+  @Test
+  void testShapeId() {
+    MappedStatement statement = getMappedStatement("find");
+    BoundSql first = statement.getBoundSql(params("Fred", null, Arrays.asList(1, 2)));
+    BoundSql second = statement.getBoundSql(params("Wilma", null, Arrays.asList(3, 4)));
+    BoundSql third = statement.getBoundSql(params("Fred", "Flintstone", null));
+    Assertions.assertEquals(FreeMarkerSqlSource.toShapeId(first.getSql()),
+        first.getAdditionalParameter(FreeMarkerSqlSource.SHAPE_ID_KEY));
+    Assertions.assertSame(first.getAdditionalParameter(FreeMarkerSqlSource.SHAPE_ID_KEY),
+        second.getAdditionalParameter(FreeMarkerSqlSource.SHAPE_ID_KEY));
+    Assertions.assertEquals(FreeMarkerSqlSource.toShapeId(third.getSql()),
+        third.getAdditionalParameter(FreeMarkerSqlSource.SHAPE_ID_KEY));
+    Assertions.assertNotEquals(first.getAdditionalParameter(FreeMarkerSqlSource.SHAPE_ID_KEY),
+        third.getAdditionalParameter(FreeMarkerSqlSource.SHAPE_ID_KEY));
+
+    // Static and not cached templates have the shape id too
+    // (MappedStatement#getBoundSql drops the additional parameters of SQL without parameter mappings)
+    BoundSql all = getMappedStatement("findAll").getSqlSource().getBoundSql(null);
+    Assertions.assertEquals(FreeMarkerSqlSource.toShapeId("select * from names order by id"),
+        all.getAdditionalParameter(FreeMarkerSqlSource.SHAPE_ID_KEY));
+    BoundSql memo = getMappedStatement("findWithMemo").getBoundSql(Collections.singletonMap("id", 1));
+    Assertions.assertEquals(FreeMarkerSqlSource.toShapeId(memo.getSql()),
+        memo.getAdditionalParameter(FreeMarkerSqlSource.SHAPE_ID_KEY));
+
+    // The count query has its own shape id
+    BoundSql count = ((FreeMarkerSqlSource) statement.getSqlSource()).getCountSqlSource()
+        .getBoundSql(params("Fred", null, Arrays.asList(1, 2)));
+    Assertions.assertEquals(FreeMarkerSqlSource.toShapeId(count.getSql()),
+        count.getAdditionalParameter(FreeMarkerSqlSource.SHAPE_ID_KEY));
+  }
+
+  @Test
+  void testToShapeId() {
+    // The known values of 64-bit FNV-1a
+    Assertions.assertEquals("cbf29ce484222325", FreeMarkerSqlSource.toShapeId(""));
+    Assertions.assertEquals("af63dc4c8601ec8c", FreeMarkerSqlSource.toShapeId("a"));
+    Assertions.assertEquals("85944171f73967e8", FreeMarkerSqlSource.toShapeId("foobar"));
+  }
+
+  @Test
+  void testConfigureByProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("shape-cache-enabled", "true");
+    properties.setProperty("shape-id-enabled", "true");
+    Assertions.assertTrue(FreeMarkerLanguageDriverConfig.newInstance(properties).isShapeCacheEnabled());
+    Assertions.assertTrue(FreeMarkerLanguageDriverConfig.newInstance(properties).isShapeIdEnabled());
+    Assertions.assertFalse(FreeMarkerLanguageDriverConfig.newInstance(new Properties()).isShapeCacheEnabled());
+    Assertions.assertFalse(FreeMarkerLanguageDriverConfig.newInstance(new Properties()).isShapeIdEnabled());
+  }
+
+  private static MappedStatement getMappedStatement(String id) {
+    return sqlSessionFactory.getConfiguration().getMappedStatement(ShapeCacheMapper.class.getName() + "." + id);
+  }
+
+  private static Map<String, Object> params(String firstName, String lastName, List<?> ids) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("firstName", firstName);
+    params.put("lastName", lastName);
+    params.put("ids", ids);
+    return params;
+  }
+
+  public static class ShapeCacheLanguageDriver extends FreeMarkerLanguageDriver {
+    public ShapeCacheLanguageDriver() {
+      super(FreeMarkerLanguageDriverConfig.newInstance((FreeMarkerLanguageDriverConfig config) -> {
+        config.setTemplateCompilation(FreeMarkerLanguageDriverConfig.TemplateCompilation.VERIFY);
+        config.setShapeCacheEnabled(true);
+        config.setShapeIdEnabled(true);
+      }));
+    }
+  }
+
+}
@@ -0,0 +1,29 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Mapper for {@link SharedVariablesTest}.
+ */
+public interface SharedVariablesMapper {
+  @Lang(SharedVariablesTest.SharedVariablesLanguageDriver.class)
+  @Select("select * from names where id = ${Ids.BARNEY} and lastName = <@p value=LastNames.Rubble/>"
+      + " and firstName = <@p value=Ids.firstNameOf(Ids.BARNEY)/> and <@p value=flag/> = 'on'")
+  Name findBarney();
+}
@@ -0,0 +1,122 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Properties;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for shared variables of {@link FreeMarkerLanguageDriverConfig}.
+ */
+class SharedVariablesTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:shared-variables");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(SharedVariablesMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testSharedVariables() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Name name = sqlSession.getMapper(SharedVariablesMapper.class).findBarney();
+      Assertions.assertEquals(4, name.getId());
+    }
+  }
+
+  @Test
+  void testConfigureByProperties() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("shared-variables.flag", "on");
+    properties.setProperty("shared-statics.Ids", SharedConstants.class.getName());
+    properties.setProperty("shared-enums.LastNames", LastName.class.getName());
+    FreeMarkerLanguageDriverConfig config = FreeMarkerLanguageDriverConfig.newInstance(properties);
+    Assertions.assertEquals("on", config.getSharedVariables().get("flag"));
+    Assertions.assertEquals(SharedConstants.class.getName(), config.getSharedStatics().get("Ids"));
+    Assertions.assertEquals(LastName.class.getName(), config.getSharedEnums().get("LastNames"));
+
+    freemarker.template.Configuration cfg = new FreeMarkerLanguageDriver(config).createFreeMarkerConfiguration();
+    Assertions.assertNotNull(cfg.getSharedVariable("flag"));
+    Assertions.assertNotNull(cfg.getSharedVariable("Ids"));
+    Assertions.assertNotNull(cfg.getSharedVariable("LastNames"));
+  }
+
+  @Test
+  void testUnknownSharedClass() {
+    FreeMarkerLanguageDriverConfig config = FreeMarkerLanguageDriverConfig
+        .newInstance((FreeMarkerLanguageDriverConfig c) -> c.getSharedStatics().put("Unknown", "com.example.Unknown"));
+    IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+        () -> new FreeMarkerLanguageDriver(config));
+    Assertions.assertEquals("Fail to configure FreeMarker shared class. name[Unknown] class[com.example.Unknown]",
+        e.getMessage());
+  }
+
+  public static class SharedVariablesLanguageDriver extends FreeMarkerLanguageDriver {
+    public SharedVariablesLanguageDriver() {
+      super(FreeMarkerLanguageDriverConfig.newInstance((FreeMarkerLanguageDriverConfig config) -> {
+        config.getSharedVariables().put("flag", "on");
+        config.getSharedStatics().put("Ids", SharedConstants.class.getName());
+        config.getSharedEnums().put("LastNames", LastName.class.getName());
+      }));
+    }
+  }
+
+  public static class SharedConstants {
+    public static final int BARNEY = 4;
+
+    public static String firstNameOf(int id) {
+      return id == BARNEY ? "Barney" : null;
+    }
+  }
+
+}
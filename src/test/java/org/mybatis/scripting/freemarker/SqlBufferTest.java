@@ -0,0 +1,71 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link SqlBuffer}.
+ */
+class SqlBufferTest {
+
+  @Test
+  void testWriteAcrossBlocks() {
+    SqlBuffer buffer = new SqlBuffer();
+    StringBuilder expected = new StringBuilder();
+    char[] chars = new char[700];
+    for (int i = 0; i < 10; i++) {
+      Arrays.fill(chars, (char) ('a' + i));
+      buffer.write(chars, 100, 600);
+      expected.append(chars, 100, 600);
+      buffer.write('#');
+      expected.append('#');
+      buffer.write("short", 1, 3);
+      expected.append("hor");
+    }
+    Assertions.assertEquals(expected.length(), buffer.length());
+    Assertions.assertEquals(expected.toString(), buffer.toString());
+  }
+
+  @Test
+  void testSharedStrings() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      builder.append(i).append(", ");
+    }
+    String longText = builder.toString();
+
+    SqlBuffer buffer = new SqlBuffer();
+    buffer.write(longText);
+    // The only segment is returned as it is
+    Assertions.assertSame(longText, buffer.toString());
+
+    buffer.write("select ");
+    buffer.write(longText);
+    buffer.append("from names");
+    Assertions.assertEquals(longText + "select " + longText + "from names", buffer.toString());
+    Assertions.assertSame(buffer.toString(), buffer.toString());
+  }
+
+  @Test
+  void testEmpty() {
+    Assertions.assertEquals("", new SqlBuffer().toString());
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+/**
+ * Test for {@link SqlCompactor}.
+ */
+class SqlCompactorTest {
+
+  private static final freemarker.template.Configuration CFG = new freemarker.template.Configuration(
+      freemarker.template.Configuration.VERSION_2_3_22);
+
+  @Test
+  void testCollapseWhitespaceAndDropComments() throws Exception {
+    assertCompacted("select * from names where id = 1 ",
+        "select *\n  /* all columns */\n  from names -- the table\n\n  where id = 1\n");
+    assertCompacted("select id from names", "select/**/id from names");
+  }
+
+  @Test
+  void testKeepLiteralsAndHints() throws Exception {
+    assertCompacted("select /*+ INDEX(names) */ * from names where lastName = 'Flint  stone -- /* x */'",
+        "select /*+ INDEX(names) */ *\n  from names\n  where lastName = 'Flint  stone -- /* x */'");
+    assertCompacted("select \"first  Name\", `last  Name` from names where id = 'it''s  1'",
+        "select   \"first  Name\",  `last  Name`  from names where id = 'it''s  1'");
+    assertCompacted("select /*!40000 SQL_NO_CACHE */ * from names", "select  /*!40000 SQL_NO_CACHE */  * from names");
+  }
+
+  @Test
+  void testCompactDynamicTemplate() throws Exception {
+    Template template = compact("select *\n  from names\n  <#if id??>\n    where id = ${id}\n  </#if>\n"
+        + "  <#list ids![] as x>\n    ${x}<#sep>,\n  </#list>");
+    Map<String, Object> dataModel = new HashMap<>();
+    Assertions.assertEquals("select * from names ", process(template, dataModel));
+    dataModel.put("id", 1);
+    dataModel.put("ids", new int[] { 1, 2 });
+    Assertions.assertEquals("select * from names  where id = 1\n 1,  2", process(template, dataModel));
+  }
+
+  @Test
+  void testLiteralContainingInterpolation() throws Exception {
+    Template template = compact("select  *  from names where firstName like '%  ${name}  %'  order by  id");
+    Map<String, Object> dataModel = new HashMap<>();
+    dataModel.put("name", "Fred");
+    Assertions.assertEquals("select * from names where firstName like '%  Fred  %' order by id",
+        process(template, dataModel));
+
+    // The literal that is not closed in the same sequence stops the compaction
+    template = compact("select  * '<#if name??>${name}</#if>'  from  names");
+    Assertions.assertEquals("select * '<#if name??>${name}</#if>'  from  names", template.toString());
+  }
+
+  @Test
+  void testNotCompactDialectSpecificText() throws Exception {
+    assertNotCompacted("select  'it\\'s'  from  names");
+    assertNotCompacted("select  5--1  from  names");
+    assertNotCompacted("select  1 /* a /* b */ c */  from  names");
+    assertNotCompacted("select  $$it's$$  from  names");
+    assertNotCompacted("select  $tag$ x $tag$  from  names");
+    assertNotCompacted("select  q'[it's]'  from  names");
+    assertNotCompacted("<#noparse>select  ${id}  from  names</#noparse>");
+    // The rest of template after the dialect specific text is kept
+    Template template = compact("select  ${id}  from  names  where  ${id}  = 'a\\'b'");
+    Assertions.assertEquals("select ${id} from names where ${id}  = 'a\\'b'", template.toString());
+  }
+
+  @Test
+  void testKeepLineBreakAfterDynamicText() throws Exception {
+    Template template = compact("select * from names ${comment}\n  where id = 1");
+    Map<String, Object> dataModel = new HashMap<>();
+    dataModel.put("comment", "-- the comment");
+    Assertions.assertEquals("select * from names -- the comment\nwhere id = 1", process(template, dataModel));
+  }
+
+  @Test
+  void testCompactSharedTemplateOnce() throws Exception {
+    Template template = compact("select  *  from  names  <#if id??>where  id = ${id}</#if>");
+    Assertions.assertEquals("select * from names <#if id??>where id = ${id}</#if>", template.toString());
+    // The template that is already compacted is never modified again
+    TemplateTree.root(template).setChild(0, TemplateTree.text("select  *  from  names  "));
+    Assertions.assertSame(template, SqlCompactor.compact(template));
+    Assertions.assertEquals("select  *  from  names  <#if id??>where id = ${id}</#if>", template.toString());
+  }
+
+  @Test
+  void testDriverConfig() {
+    Configuration configuration = new Configuration();
+    FreeMarkerLanguageDriverConfig driverConfig = FreeMarkerLanguageDriverConfig.newInstance(c -> {
+      c.setSqlCompactionEnabled(true);
+      c.setTemplateCompilation(FreeMarkerLanguageDriverConfig.TemplateCompilation.VERIFY);
+    });
+    FreeMarkerLanguageDriver driver = new FreeMarkerLanguageDriver(driverConfig);
+
+    BoundSql boundSql = driver
+        .createSqlSource(configuration, "select *\n  -- all names\n  from names\n  where id = <@p name=\"id\"/>", null)
+        .getBoundSql(Collections.singletonMap("id", 1));
+    Assertions.assertEquals("select * from names where id = ?", boundSql.getSql());
+    Assertions.assertEquals("select * from names ",
+        driver.createSqlSource(configuration, "select *\n  from names\n", null).getBoundSql(null).getSql());
+
+    Properties properties = new Properties();
+    properties.setProperty("sql-compaction-enabled", "true");
+    Assertions.assertTrue(FreeMarkerLanguageDriverConfig.newInstance(properties).isSqlCompactionEnabled());
+  }
+
+  private static void assertCompacted(String expected, String source) throws IOException {
+    Template template = compact(source);
+    Assertions.assertEquals(expected, template.toString());
+  }
+
+  private static void assertNotCompacted(String source) throws IOException {
+    assertCompacted(source, source);
+  }
+
+  private static Template compact(String source) throws IOException {
+    return SqlCompactor.compact(new Template(null, source, CFG));
+  }
+
+  private static String process(Template template, Map<String, Object> dataModel)
+      throws IOException, TemplateException {
+    StringWriter writer = new StringWriter();
+    template.process(dataModel, writer);
+    return writer.toString();
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+
+/**
+ * Mapper for {@link StreamParamsTest}.
+ */
+public interface StreamParamsMapper {
+  @Lang(ParamObjectWrapperLanguageDriver.class)
+  @Select("select * from names where id in (<#list ids as id><@p value=id/><#sep>, </#list>) order by id")
+  List<Name> findByIdIterator(@Param("ids") Iterator<Integer> ids);
+
+  @Lang(ParamObjectWrapperLanguageDriver.class)
+  @Select("select * from names <#if ids?has_content>where id in (<#list ids as id><@p value=id/><#sep>, </#list>)</#if>"
+      + " order by id")
+  List<Name> findByIdStream(@Param("ids") Stream<Integer> ids);
+
+  @Lang(ParamObjectWrapperLanguageDriver.class)
+  @Select("select * from names where id in (<#list ids as id><@p value=id/><#sep>, </#list>)"
+      + " or id in (<#list ids as id><@p value=id/><#sep>, </#list>)")
+  List<Name> findByIdStreamTwice(@Param("ids") Stream<Integer> ids);
+
+  @Lang(ParamObjectWrapperLanguageDriver.class)
+  @Select("select * from names where lastName = 'Flintstone' order by id")
+  Cursor<Name> findFlintstones();
+
+  @Lang(ParamObjectWrapperLanguageDriver.class)
+  @Select("select * from names where firstName in (<@p values=names/>) order by id")
+  List<Name> findByFirstNames(@Param("names") Stream<String> names);
+
+  @Lang(ParamObjectWrapperLanguageDriver.class)
+  @Select("select * from names where id in (<#list names as name><@p value=name.id + 3/><#sep>, </#list>) order by id")
+  List<Name> findByCursor(@Param("names") Cursor<Name> names);
+}
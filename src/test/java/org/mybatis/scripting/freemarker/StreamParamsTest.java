@@ -0,0 +1,133 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import freemarker.template.TemplateModelException;
+
+/**
+ * Test for single-pass collection parameters ({@link SinglePassCollectionModel}).
+ */
+class StreamParamsTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:stream-params");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(StreamParamsMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testIterator() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Name> names = sqlSession.getMapper(StreamParamsMapper.class)
+          .findByIdIterator(Arrays.asList(4, 2).iterator());
+      Assertions.assertEquals(2, names.size());
+      Assertions.assertEquals(2, names.get(0).getId());
+      Assertions.assertEquals(4, names.get(1).getId());
+    }
+  }
+
+  @Test
+  void testStreamWithHasContent() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      StreamParamsMapper mapper = sqlSession.getMapper(StreamParamsMapper.class);
+      List<Name> names = mapper.findByIdStream(Stream.of(1, 2, 3).filter(id -> id != 2));
+      Assertions.assertEquals(2, names.size());
+      Assertions.assertEquals(3, names.get(1).getId());
+
+      Assertions.assertEquals(5, mapper.findByIdStream(Stream.empty()).size());
+    }
+  }
+
+  @Test
+  void testStreamListedTwice() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      StreamParamsMapper mapper = sqlSession.getMapper(StreamParamsMapper.class);
+      PersistenceException e = Assertions.assertThrows(PersistenceException.class,
+          () -> mapper.findByIdStreamTwice(Stream.of(1, 2)));
+      Assertions.assertInstanceOf(TemplateModelException.class, e.getCause().getCause());
+      Assertions.assertTrue(e.getCause().getMessage().contains("can be listed only once"));
+    }
+  }
+
+  @Test
+  void testStreamValues() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Name> names = sqlSession.getMapper(StreamParamsMapper.class)
+          .findByFirstNames(Stream.of("Fred", "Betty"));
+      Assertions.assertEquals(2, names.size());
+      Assertions.assertEquals(1, names.get(0).getId());
+      Assertions.assertEquals(5, names.get(1).getId());
+    }
+  }
+
+  @Test
+  void testCursor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      StreamParamsMapper mapper = sqlSession.getMapper(StreamParamsMapper.class);
+      try (Cursor<Name> flintstones = mapper.findFlintstones()) {
+        List<Name> names = mapper.findByCursor(flintstones);
+        Assertions.assertEquals(2, names.size());
+        Assertions.assertEquals("Barney", names.get(0).getFirstName());
+        Assertions.assertEquals("Betty", names.get(1).getFirstName());
+      }
+    }
+  }
+
+}
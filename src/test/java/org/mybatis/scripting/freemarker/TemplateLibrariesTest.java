@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for auto-imported and auto-included libraries ({@link TemplateLibraries}).
+ */
+class TemplateLibrariesTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    Class.forName("org.hsqldb.jdbcDriver");
+
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setUrl("jdbc:hsqldb:mem:template-libraries");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+
+    try (Connection conn = dataSource.getConnection()) {
+      try (Reader reader = Resources.getResourceAsReader("org/mybatis/scripting/freemarker/create-db.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.setErrorLogWriter(null);
+        runner.runScript(reader);
+        conn.commit();
+      }
+    }
+
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("development", transactionFactory, dataSource);
+
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(TemplateLibrariesMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void testAutoImportsAndIncludes() {
+    BoundSql boundSql = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(TemplateLibrariesMapper.class.getName() + ".findById")
+        .getBoundSql(Collections.singletonMap("id", 3));
+    Assertions.assertEquals("/* header */ select id, firstName, lastName from names where id = ?",
+        boundSql.getSql().replaceAll("\\s+", " "));
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Name name = sqlSession.getMapper(TemplateLibrariesMapper.class).findById(3);
+      Assertions.assertEquals("Pebbles", name.getFirstName());
+    }
+  }
+
+  @Test
+  void testConfigureByProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("template-file.base-dir", "sql");
+    properties.setProperty("auto-imports.c", "lib/common.ftl");
+    properties.setProperty("auto-includes", "lib/header.ftl, lib/common.ftl");
+    FreeMarkerLanguageDriverConfig config = FreeMarkerLanguageDriverConfig.newInstance(properties);
+    Assertions.assertEquals("lib/common.ftl", config.getAutoImports().get("c"));
+    Assertions.assertEquals(2, config.getAutoIncludes().size());
+    Assertions.assertEquals("lib/header.ftl", config.getAutoIncludes().get(0));
+    Assertions.assertEquals("lib/common.ftl", config.getAutoIncludes().get(1));
+
+    Assertions.assertNotNull(TemplateLibraries.of(new FreeMarkerLanguageDriver(config).createFreeMarkerConfiguration()));
+  }
+
+  @Test
+  void testLibraryNotFound() {
+    FreeMarkerLanguageDriverConfig config = FreeMarkerLanguageDriverConfig
+        .newInstance((FreeMarkerLanguageDriverConfig c) -> c.getAutoImports().put("c", "lib/notfound.ftl"));
+    IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+        () -> new FreeMarkerLanguageDriver(config));
+    Assertions.assertEquals("Fail to load FreeMarker library template. name[lib/notfound.ftl]", e.getMessage());
+  }
+
+  public static class TemplateLibrariesLanguageDriver extends FreeMarkerLanguageDriver {
+    public TemplateLibrariesLanguageDriver() {
+      super(FreeMarkerLanguageDriverConfig.newInstance((FreeMarkerLanguageDriverConfig config) -> {
+        config.getAutoImports().put("c", "lib/common.ftl");
+        config.getAutoIncludes().add("lib/header.ftl");
+      }));
+    }
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import freemarker.template.SimpleScalar;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+/**
+ * Test for {@link TemplateSpecializer}.
+ */
+class TemplateSpecializerTest {
+
+  private static final freemarker.template.Configuration CFG = new freemarker.template.Configuration(
+      freemarker.template.Configuration.VERSION_2_3_22);
+
+  private static final String CHAIN = "<#-- dialects -->where <#if _databaseId == 'h2'>a = 1"
+      + "<#elseif \"hsqldb\" = _databaseId>b = 1<#elseif '${_databaseId}' != 'oracle'>c = 1<#else>d = 1</#if>";
+
+  @Test
+  void testPruneChain() throws Exception {
+    assertSpecialized("where a = 1", CHAIN, "h2");
+    assertSpecialized("where b = 1", CHAIN, "hsqldb");
+    assertSpecialized("where c = 1", CHAIN, "db2");
+    assertSpecialized("where c = 1", CHAIN, null);
+    assertSpecialized("where d = 1", CHAIN, "oracle");
+  }
+
+  @Test
+  void testPruneWithoutLiveBranch() throws Exception {
+    assertSpecialized("select * from names ", "select * from names <#if _databaseId == 'h2'>limit 10</#if>", "hsqldb");
+  }
+
+  @Test
+  void testNotPruneChainContainingOtherConditions() throws Exception {
+    Template template = specialize("<#if id??>id = ${id}<#elseif _databaseId == 'h2'>1 = 1<#else>1 = 0</#if>", "h2");
+    Assertions.assertFalse(TemplateSpecializer.isStatic(template));
+
+    Map<String, Object> dataModel = new HashMap<>();
+    dataModel.put("_databaseId", "h2");
+    Assertions.assertEquals("1 = 1", process(template, dataModel));
+    dataModel.put("id", 1);
+    Assertions.assertEquals("id = 1", process(template, dataModel));
+  }
+
+  @Test
+  void testPruneNestedBranches() throws Exception {
+    Template template = specialize(
+        "<#if id??><#if _databaseId == 'h2'>id = ${id}<#else>id = -1</#if><#else>1 = 1</#if>", "h2");
+    Assertions.assertFalse(TemplateSpecializer.isStatic(template));
+
+    // The block that has multiple elements is kept with its (always true) condition
+    Map<String, Object> dataModel = new HashMap<>();
+    dataModel.put("_databaseId", "h2");
+    Assertions.assertEquals("1 = 1", process(template, dataModel));
+    dataModel.put("id", 1);
+    Assertions.assertEquals("id = 1", process(template, dataModel));
+  }
+
+  @Test
+  void testStaticTemplate() throws Exception {
+    Assertions.assertTrue(TemplateSpecializer.isStatic(specialize("<#-- comment -->select * from names", "h2")));
+    Assertions.assertFalse(TemplateSpecializer.isStatic(specialize("select * from ${table}", "h2")));
+  }
+
+  @Test
+  void testFileTemplatePerDatabaseId() {
+    FreeMarkerLanguageDriver driver = newSpecializingDriver();
+    Configuration hsqldb = new Configuration();
+    hsqldb.setDatabaseId("hsqldb");
+    Configuration h2 = new Configuration();
+    h2.setDatabaseId("h2");
+
+    SqlSource hsqldbSqlSource = driver.createSqlSource(hsqldb, "preparedDatabaseIdTest.ftl", null);
+    SqlSource h2SqlSource = driver.createSqlSource(h2, "preparedDatabaseIdTest.ftl", null);
+
+    Assertions.assertTrue(hsqldbSqlSource.getBoundSql(new Object()).getSql().trim()
+        .endsWith("where\n    firstName = 'Fred' and lastName = 'Flintstone'"));
+    Assertions.assertTrue(h2SqlSource.getBoundSql(new Object()).getSql().trim().endsWith("where"));
+  }
+
+  @Test
+  void testStaticSqlSource() {
+    FreeMarkerLanguageDriver driver = newSpecializingDriver();
+    Configuration configuration = new Configuration();
+    configuration.setDatabaseId("hsqldb");
+    SqlSource sqlSource = driver.createSqlSource(configuration,
+        "select * from names <#if _databaseId == 'hsqldb'>limit 1<#else>fetch first 1 rows only</#if>", null);
+
+    Assertions.assertEquals("select * from names limit 1", sqlSource.getBoundSql(null).getSql());
+    Assertions.assertEquals("select * from names limit 1", sqlSource.getBoundSql(new Object()).getSql());
+  }
+
+  @Test
+  void testDriverConfig() {
+    Assertions.assertFalse(FreeMarkerLanguageDriverConfig.newInstance().isTemplateSpecializationEnabled());
+    Properties properties = new Properties();
+    properties.setProperty("template-specialization-enabled", "true");
+    Assertions.assertTrue(FreeMarkerLanguageDriverConfig.newInstance(properties).isTemplateSpecializationEnabled());
+
+    // The branches are evaluated at each call by default
+    Configuration configuration = new Configuration();
+    configuration.setDatabaseId("hsqldb");
+    SqlSource sqlSource = new FreeMarkerLanguageDriver().createSqlSource(configuration,
+        "select * from names <#if _databaseId == 'hsqldb'>limit 1<#else>fetch first 1 rows only</#if>", null);
+    Assertions.assertEquals("select * from names limit 1", sqlSource.getBoundSql(null).getSql());
+  }
+
+  @Test
+  void testNotSpecializeTemplateDeclaringDatabaseId() throws Exception {
+    String condition = "db: <#if _databaseId == 'h2'>h2<#else>other</#if>";
+    for (String source : new String[] { "<#assign _databaseId = 'h2'>" + condition,
+        "<#list ['h2'] as _databaseId>" + condition + "</#list>",
+        "<#macro m _databaseId>" + condition + "</#macro><@m _databaseId='h2'/>" }) {
+      Template template = specialize(source, "hsqldb");
+      Assertions.assertNull(TemplateSpecializer.getSpecializedDatabaseId(template), source);
+      Assertions.assertEquals("db: h2", process(template, new HashMap<>()), source);
+    }
+    Assertions.assertEquals("hsqldb", TemplateSpecializer.getSpecializedDatabaseId(specialize(condition, "hsqldb")));
+    Assertions.assertEquals("", TemplateSpecializer.getSpecializedDatabaseId(specialize(condition, null)));
+  }
+
+  @Test
+  void testDatabaseIdIsReserved() {
+    FreeMarkerLanguageDriver driver = newSpecializingDriver();
+    Configuration configuration = new Configuration();
+    configuration.setDatabaseId("hsqldb");
+    DatabaseIdParam param = new DatabaseIdParam();
+    Assertions.assertEquals("select 'hsqldb' from names where id = 1", driver
+        .createSqlSource(configuration, "select '${_databaseId}' from names where id = ${id}", null)
+        .getBoundSql(param).getSql());
+    Assertions.assertEquals("select 1 from names where id = 1",
+        driver.createSqlSource(configuration,
+            "select <#if _databaseId == 'hsqldb'>1<#else>2</#if> from names where id = ${id}", null)
+            .getBoundSql(param).getSql());
+  }
+
+  @Test
+  void testDetectShadowedDatabaseId() throws Exception {
+    Configuration configuration = new Configuration();
+    configuration.setDatabaseId("hsqldb");
+    Template template = specialize("select <#if _databaseId == 'hsqldb'>1<#else>2</#if> from ${table}", "hsqldb");
+    SqlSource sqlSource = new FreeMarkerSqlSource(template, configuration, CFG.getIncompatibleImprovements()) {
+      @Override
+      @SuppressWarnings("unchecked")
+      protected Object preProcessDataContext(Object dataContext, boolean isMap) {
+        Object result = super.preProcessDataContext(dataContext, isMap);
+        ((Map<String, Object>) result).put("_databaseId", new SimpleScalar("h2"));
+        return result;
+      }
+    };
+    Map<String, Object> param = new HashMap<>();
+    param.put("table", "names");
+    Assertions.assertThrows(IllegalStateException.class, () -> sqlSource.getBoundSql(param));
+  }
+
+  public static class DatabaseIdParam {
+    public int getId() {
+      return 1;
+    }
+
+    public String get_databaseId() {
+      return "h2";
+    }
+  }
+
+  private static void assertSpecialized(String expected, String source, String databaseId) throws Exception {
+    Template template = specialize(source, databaseId);
+    Assertions.assertTrue(TemplateSpecializer.isStatic(template), template::toString);
+    Assertions.assertEquals(expected, process(template, new HashMap<>()));
+  }
+
+  private static Template specialize(String source, String databaseId) throws Exception {
+    Template template = new Template(null, new StringReader(source), CFG);
+    TemplateSpecializer.specialize(template, databaseId);
+    return template;
+  }
+
+  private static FreeMarkerLanguageDriver newSpecializingDriver() {
+    return new FreeMarkerLanguageDriver(
+        FreeMarkerLanguageDriverConfig.newInstance(c -> c.setTemplateSpecializationEnabled(true)));
+  }
+
+  private static String process(Template template, Map<String, Object> dataModel)
+      throws TemplateException, IOException {
+    StringWriter writer = new StringWriter();
+    template.process(dataModel, writer);
+    return writer.toString();
+  }
+
+}
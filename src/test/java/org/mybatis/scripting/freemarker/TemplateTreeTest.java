@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2015-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.scripting.freemarker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import freemarker.template.Template;
+
+/**
+ * Test for {@link TemplateTree}. It fails when the template tree format of FreeMarker is changed (e.g. after upgrading
+ * FreeMarker), because the database id specialization, the template compilation and the SQL compaction depend on it.
+ */
+class TemplateTreeTest {
+
+  private static final freemarker.template.Configuration CFG = new freemarker.template.Configuration(
+      freemarker.template.Configuration.VERSION_2_3_22);
+
+  @Test
+  void testTreeFormat() throws Exception {
+    Assertions.assertEquals(TemplateTree.PROBE_TREE,
+        TemplateTree.root(new Template(null, TemplateTree.PROBE_SOURCE, CFG)).dump());
+    Assertions.assertTrue(TemplateTree.isSupported());
+  }
+
+  @Test
+  void testSetChild() throws Exception {
+    Template template = new Template(null, "a<#if x>b</#if>c", CFG);
+    TemplateTree root = TemplateTree.root(template);
+    root.setChild(1, TemplateTree.text("B"));
+    Assertions.assertEquals("aBc", template.toString());
+    Assertions.assertEquals(root.child(1), root.child(1));
+    Assertions.assertNotEquals(root.child(0), root.child(1));
+  }
+
+  @Test
+  void testTransformOnce() throws Exception {
+    Template template = new Template(null, "a<#if x>b</#if>", CFG);
+    int[] count = new int[1];
+    TemplateTree.transformOnce(template, "test", root -> count[0]++);
+    TemplateTree.transformOnce(template, "test", root -> count[0]++);
+    TemplateTree.transformOnce(template, "other", root -> count[0]++);
+    Assertions.assertEquals(2, count[0]);
+  }
+
+}